@@ -2,5 +2,16 @@ package com.macoscope.gcbmodel;
 
 public class CommunicationConfig {
     public static final String EVENTS_LIST_PATH = "/eventsList";
+    /**
+     * Path used by watch to ask handheld for events snapshot when it missed some {@link SyncMessage}.
+     */
+    public static final String EVENTS_SNAPSHOT_REQUEST_PATH = "/eventsSnapshotRequest";
+    /**
+     * JSON events list, sent by handheld apps which don't support {@link EventsCodec} binary payload yet.
+     */
     public static final String EVENTS_LIST_DATA_KEY = "eventsList";
+    public static final String EVENTS_PAYLOAD_DATA_KEY = "eventsPayload";
+    public static final String EVENTS_DELTA_DATA_KEY = "eventsDelta";
+    public static final String EVENTS_SEQUENCE_KEY = "sequence";
+    public static final String EVENTS_BASE_SEQUENCE_KEY = "baseSequence";
 }
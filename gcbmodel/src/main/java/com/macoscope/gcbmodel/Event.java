@@ -3,9 +3,12 @@ package com.macoscope.gcbmodel;
 import java.util.concurrent.TimeUnit;
 
 public class Event {
+    public static final long NO_CALENDAR_ID = -1;
+
     private long id;
     private long startDate;
     private String title;
+    private long calendarId;
     private String calendarDisplayName;
 
     public long getId() {
@@ -32,6 +35,14 @@ public class Event {
         this.title = title;
     }
 
+    public long getCalendarId() {
+        return calendarId;
+    }
+
+    public void setCalendarId(long calendarId) {
+        this.calendarId = calendarId;
+    }
+
     public String getCalendarDisplayName() {
         return calendarDisplayName;
     }
@@ -41,9 +52,14 @@ public class Event {
     }
 
     public Event(long id, long startDate, String title, String calendarDisplayName) {
+        this(id, startDate, title, NO_CALENDAR_ID, calendarDisplayName);
+    }
+
+    public Event(long id, long startDate, String title, long calendarId, String calendarDisplayName) {
         this.id = id;
         this.startDate = startDate;
         this.title = title;
+        this.calendarId = calendarId;
         this.calendarDisplayName = calendarDisplayName;
     }
 
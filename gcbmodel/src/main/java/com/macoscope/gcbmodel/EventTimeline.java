@@ -0,0 +1,229 @@
+package com.macoscope.gcbmodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable events list sorted by start date and packed into parallel primitive arrays. Titles are kept once in
+ * strings table, calendars are kept once in calendars table, events reference both by index.
+ */
+public class EventTimeline {
+    public static final int NO_EVENT = -1;
+    private static final int NULL_STRING_INDEX = -1;
+    private static final EventTimeline EMPTY = new EventTimeline(new long[0], new long[0], new int[0], new int[0],
+            new String[0], new long[0], new String[0]);
+
+    private static Comparator<Event> startDateComparator = new Comparator<Event>() {
+        @Override
+        public int compare(Event lhs, Event rhs) {
+            if (lhs.getStartDate() < rhs.getStartDate()) {
+                return -1;
+            } else if (lhs.getStartDate() > rhs.getStartDate()) {
+                return 1;
+            } else {
+                return 0;
+            }
+        }
+    };
+
+    private final long[] startDates;
+    private final long[] ids;
+    private final int[] titleIndexes;
+    private final int[] calendarIndexes;
+    private final String[] strings;
+    private final long[] calendarIds;
+    private final String[] calendarNames;
+
+    private EventTimeline(long[] startDates, long[] ids, int[] titleIndexes, int[] calendarIndexes, String[] strings,
+                          long[] calendarIds, String[] calendarNames) {
+        this.startDates = startDates;
+        this.ids = ids;
+        this.titleIndexes = titleIndexes;
+        this.calendarIndexes = calendarIndexes;
+        this.strings = strings;
+        this.calendarIds = calendarIds;
+        this.calendarNames = calendarNames;
+    }
+
+    public static EventTimeline empty() {
+        return EMPTY;
+    }
+
+    public static EventTimeline fromEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return EMPTY;
+        }
+        List<Event> sortedEvents = new ArrayList<>(events);
+        Collections.sort(sortedEvents, startDateComparator);
+
+        int size = sortedEvents.size();
+        long[] startDates = new long[size];
+        long[] ids = new long[size];
+        int[] titleIndexes = new int[size];
+        int[] calendarIndexes = new int[size];
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<Event> calendars = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Event event = sortedEvents.get(i);
+            startDates[i] = event.getStartDate();
+            ids[i] = event.getId();
+            titleIndexes[i] = intern(event.getTitle(), stringIndexes, strings);
+            calendarIndexes[i] = internCalendar(event, calendars);
+        }
+        long[] calendarIds = new long[calendars.size()];
+        String[] calendarNames = new String[calendars.size()];
+        for (int i = 0; i < calendars.size(); i++) {
+            calendarIds[i] = calendars.get(i).getCalendarId();
+            calendarNames[i] = calendars.get(i).getCalendarDisplayName();
+        }
+        return new EventTimeline(startDates, ids, titleIndexes, calendarIndexes,
+                strings.toArray(new String[strings.size()]), calendarIds, calendarNames);
+    }
+
+    /**
+     * There are only few calendars, so linear search is enough.
+     *
+     * @param calendars first event of each already interned calendar
+     */
+    private static int internCalendar(Event event, List<Event> calendars) {
+        for (int i = 0; i < calendars.size(); i++) {
+            Event calendar = calendars.get(i);
+            if (calendar.getCalendarId() == event.getCalendarId()
+                    && equalStrings(calendar.getCalendarDisplayName(), event.getCalendarDisplayName())) {
+                return i;
+            }
+        }
+        calendars.add(event);
+        return calendars.size() - 1;
+    }
+
+    private static boolean equalStrings(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    private static int intern(String value, Map<String, Integer> stringIndexes, List<String> strings) {
+        if (value == null) {
+            return NULL_STRING_INDEX;
+        }
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            stringIndexes.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+
+    public int size() {
+        return startDates.length;
+    }
+
+    public boolean isEmpty() {
+        return startDates.length == 0;
+    }
+
+    public long getStartDate(int index) {
+        return startDates[index];
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public String getTitle(int index) {
+        return getString(titleIndexes[index]);
+    }
+
+    public long getCalendarId(int index) {
+        return calendarIds[calendarIndexes[index]];
+    }
+
+    public String getCalendarDisplayName(int index) {
+        return calendarNames[calendarIndexes[index]];
+    }
+
+    private String getString(int stringIndex) {
+        return stringIndex == NULL_STRING_INDEX ? null : strings[stringIndex];
+    }
+
+    public Event getEvent(int index) {
+        return new Event(ids[index], startDates[index], getTitle(index), getCalendarId(index),
+                getCalendarDisplayName(index));
+    }
+
+    public List<Event> toEvents() {
+        List<Event> events = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            events.add(getEvent(i));
+        }
+        return events;
+    }
+
+    /**
+     * @return index of the first event valid relative to given time (see {@link Event#isValidRelativeTo(long)}) or
+     * {@link #NO_EVENT}
+     */
+    public int indexOfNextEvent(long time) {
+        int index = upperBound(time, 0, startDates.length);
+        return index < startDates.length ? index : NO_EVENT;
+    }
+
+    /**
+     * @return index of the first event starting after given time in [fromIndex, toIndex) range, toIndex if there is
+     * no such event
+     */
+    private int upperBound(long time, int fromIndex, int toIndex) {
+        int low = fromIndex;
+        int high = toIndex;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startDates[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public Cursor newCursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * Position of the next event which moves forward together with time. Moving forward is amortized O(1), moving
+     * back in time falls back to binary search. Cursor is not thread safe, each consumer should use its own cursor.
+     */
+    public static class Cursor {
+        private final EventTimeline timeline;
+        private int index;
+
+        private Cursor(EventTimeline timeline) {
+            this.timeline = timeline;
+        }
+
+        public EventTimeline getTimeline() {
+            return timeline;
+        }
+
+        /**
+         * @return index of the first event valid relative to given time or {@link #NO_EVENT}
+         */
+        public int moveTo(long time) {
+            long[] startDates = timeline.startDates;
+            if (index > 0 && startDates[index - 1] > time) {
+                index = timeline.upperBound(time, 0, index);
+            } else {
+                while (index < startDates.length && startDates[index] <= time) {
+                    index++;
+                }
+            }
+            return index < startDates.length ? index : NO_EVENT;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.macoscope.gcbmodel;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary wire format of events list and events delta shared by handheld and wearable apps.
+ * <pre>
+ * byte    version
+ * int     length of the payload following this field
+ * int     records count
+ * records
+ * </pre>
+ * Events list record is an event: long id, long startDate, string title, calendar. Delta record starts with byte
+ * operation type followed by event for add and update operations or long event id for remove.
+ * <p>
+ * Strings are written as var int reference. Reference 0 means null, reference equal to the number of already read
+ * strings + 1 is followed by var int bytes length and UTF-8 bytes, any lower reference points to already read string.
+ * <p>
+ * Calendars are written the same way as references to calendars table. New calendars table entry is followed by
+ * long calendar id, var int 0 for null display name or 1 followed by var int bytes length and UTF-8 bytes. Version 1
+ * payloads have no calendars table, calendar display name is written as string.
+ */
+public class EventsCodec {
+    public static final byte VERSION = 2;
+
+    static final byte VERSION_WITHOUT_CALENDARS = 1;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    static final int LENGTH_PREFIXED_OFFSET = 5;
+    static final int HEADER_SIZE = 9;
+    static final int NULL_REFERENCE = 0;
+    static final int NOT_NULL_STRING = 1;
+
+    /**
+     * Strings and calendars already read from the payload.
+     */
+    private static class Dictionary {
+        private final byte version;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Long> calendarIds = new ArrayList<>();
+        private final List<String> calendarNames = new ArrayList<>();
+
+        private Dictionary(byte version) {
+            this.version = version;
+        }
+    }
+
+    private EventsCodec() {
+    }
+
+    public static byte[] encode(List<Event> events) {
+        EventsPayloadWriter writer = new EventsPayloadWriter();
+        for (Event event : events) {
+            writer.writeEvent(event.getId(), event.getStartDate(), event.getTitle(), event.getCalendarId(),
+                    event.getCalendarDisplayName());
+        }
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeDelta(EventsDelta delta) {
+        EventsPayloadWriter writer = new EventsPayloadWriter();
+        for (EventsDelta.Operation operation : delta.getOperations()) {
+            writer.writeOperation(operation);
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<Event> decode(byte[] payload) throws IOException {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    public static List<Event> decode(ByteBuffer buffer) throws IOException {
+        try {
+            Dictionary dictionary = new Dictionary(readVersion(buffer));
+            int eventsCount = readHeader(buffer);
+            List<Event> events = new ArrayList<>(eventsCount);
+            for (int i = 0; i < eventsCount; i++) {
+                events.add(readEvent(buffer, dictionary));
+            }
+            return events;
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new IOException("Truncated events payload", bufferUnderflowException);
+        }
+    }
+
+    public static EventsDelta decodeDelta(byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        try {
+            Dictionary dictionary = new Dictionary(readVersion(buffer));
+            int operationsCount = readHeader(buffer);
+            List<EventsDelta.Operation> operations = new ArrayList<>(operationsCount);
+            for (int i = 0; i < operationsCount; i++) {
+                operations.add(readOperation(buffer, dictionary));
+            }
+            return new EventsDelta(operations);
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new IOException("Truncated events payload", bufferUnderflowException);
+        }
+    }
+
+    private static byte readVersion(ByteBuffer buffer) throws IOException {
+        byte version = buffer.get();
+        if (version != VERSION && version != VERSION_WITHOUT_CALENDARS) {
+            throw new IOException("Unsupported events payload version: " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Validate header following version and limit buffer to the payload length.
+     *
+     * @return records count
+     */
+    private static int readHeader(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Truncated events payload");
+        }
+        buffer.limit(buffer.position() + length);
+        int recordsCount = buffer.getInt();
+        if (recordsCount < 0) {
+            throw new IOException("Invalid records count: " + recordsCount);
+        }
+        return recordsCount;
+    }
+
+    private static Event readEvent(ByteBuffer buffer, Dictionary dictionary) throws IOException {
+        long id = buffer.getLong();
+        long startDate = buffer.getLong();
+        String title = readString(buffer, dictionary.strings);
+        if (dictionary.version == VERSION_WITHOUT_CALENDARS) {
+            return new Event(id, startDate, title, readString(buffer, dictionary.strings));
+        }
+        int calendarIndex = readCalendarIndex(buffer, dictionary);
+        return new Event(id, startDate, title, dictionary.calendarIds.get(calendarIndex),
+                dictionary.calendarNames.get(calendarIndex));
+    }
+
+    private static EventsDelta.Operation readOperation(ByteBuffer buffer, Dictionary dictionary) throws IOException {
+        byte type = buffer.get();
+        switch (type) {
+            case EventsDelta.OPERATION_ADD:
+                return EventsDelta.Operation.add(readEvent(buffer, dictionary));
+            case EventsDelta.OPERATION_UPDATE:
+                return EventsDelta.Operation.update(readEvent(buffer, dictionary));
+            case EventsDelta.OPERATION_REMOVE:
+                return EventsDelta.Operation.remove(buffer.getLong());
+            default:
+                throw new IOException("Unknown delta operation: " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, List<String> strings) throws IOException {
+        int reference = readVarInt(buffer);
+        if (reference == NULL_REFERENCE) {
+            return null;
+        }
+        int index = reference - 1;
+        if (index < strings.size()) {
+            return strings.get(index);
+        } else if (index == strings.size()) {
+            String value = readUtf8(buffer, readVarInt(buffer));
+            strings.add(value);
+            return value;
+        } else {
+            throw new IOException("Invalid string reference: " + reference);
+        }
+    }
+
+    /**
+     * @return index in calendars table, each calendar display name is read only once and shared by its events
+     */
+    private static int readCalendarIndex(ByteBuffer buffer, Dictionary dictionary) throws IOException {
+        int reference = readVarInt(buffer);
+        int index = reference - 1;
+        if (reference != NULL_REFERENCE && index < dictionary.calendarNames.size()) {
+            return index;
+        } else if (index == dictionary.calendarNames.size()) {
+            dictionary.calendarIds.add(buffer.getLong());
+            String displayName = null;
+            if (readVarInt(buffer) != NULL_REFERENCE) {
+                displayName = readUtf8(buffer, readVarInt(buffer));
+            }
+            dictionary.calendarNames.add(displayName);
+            return index;
+        } else {
+            throw new IOException("Invalid calendar reference: " + reference);
+        }
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, UTF_8);
+        }
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed var int");
+    }
+}
@@ -0,0 +1,163 @@
+package com.macoscope.gcbmodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Difference between two events lists, described as add, update and remove operations keyed by {@link Event#getId()}.
+ */
+public class EventsDelta {
+    public static final int OPERATION_ADD = 1;
+    public static final int OPERATION_UPDATE = 2;
+    public static final int OPERATION_REMOVE = 3;
+
+    public static class Operation {
+        private final int type;
+        private final long id;
+        private final Event event;
+
+        private Operation(int type, long id, Event event) {
+            this.type = type;
+            this.id = id;
+            this.event = event;
+        }
+
+        public static Operation add(Event event) {
+            return new Operation(OPERATION_ADD, event.getId(), event);
+        }
+
+        public static Operation update(Event event) {
+            return new Operation(OPERATION_UPDATE, event.getId(), event);
+        }
+
+        public static Operation remove(long id) {
+            return new Operation(OPERATION_REMOVE, id, null);
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return added or updated event, null for remove operation
+         */
+        public Event getEvent() {
+            return event;
+        }
+    }
+
+    private final List<Operation> operations;
+
+    public EventsDelta(List<Operation> operations) {
+        this.operations = Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Both lists must have unique events ids, see {@link #hasUniqueIds(List)}.
+     */
+    public static EventsDelta between(List<Event> previous, List<Event> current) {
+        Map<Long, Event> previousById = new HashMap<>(previous.size());
+        for (Event event : previous) {
+            previousById.put(event.getId(), event);
+        }
+        List<Operation> operations = new ArrayList<>();
+        for (Event event : current) {
+            Event previousEvent = previousById.remove(event.getId());
+            if (previousEvent == null) {
+                operations.add(Operation.add(event));
+            } else if (!hasSameContent(previousEvent, event)) {
+                operations.add(Operation.update(event));
+            }
+        }
+        for (Event removedEvent : previous) {
+            if (previousById.containsKey(removedEvent.getId())) {
+                operations.add(Operation.remove(removedEvent.getId()));
+            }
+        }
+        return new EventsDelta(operations);
+    }
+
+    /**
+     * Instances of the same recurring event share id, such list can't be described by delta and must be sent as
+     * snapshot.
+     */
+    public static boolean hasUniqueIds(List<Event> events) {
+        Set<Long> ids = new HashSet<>(events.size());
+        for (Event event : events) {
+            if (!ids.add(event.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Apply operations to events list sorted by start date. Given list is not modified.
+     *
+     * @return new list sorted by start date
+     */
+    public List<Event> applyTo(List<Event> sortedEvents) {
+        List<Event> events = new ArrayList<>(sortedEvents);
+        for (Operation operation : operations) {
+            removeById(events, operation.getId());
+            if (operation.getType() != OPERATION_REMOVE) {
+                events.add(insertionIndex(events, operation.getEvent().getStartDate()), operation.getEvent());
+            }
+        }
+        return events;
+    }
+
+    private static void removeById(List<Event> events, long id) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).getId() == id) {
+                events.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return index after all events starting at or before given start date
+     */
+    private static int insertionIndex(List<Event> sortedEvents, long startDate) {
+        int low = 0;
+        int high = sortedEvents.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedEvents.get(middle).getStartDate() <= startDate) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean hasSameContent(Event lhs, Event rhs) {
+        return lhs.getStartDate() == rhs.getStartDate()
+                && lhs.getCalendarId() == rhs.getCalendarId()
+                && equalStrings(lhs.getTitle(), rhs.getTitle())
+                && equalStrings(lhs.getCalendarDisplayName(), rhs.getCalendarDisplayName());
+    }
+
+    private static boolean equalStrings(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+}
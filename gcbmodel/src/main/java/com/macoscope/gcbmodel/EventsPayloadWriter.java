@@ -0,0 +1,162 @@
+package com.macoscope.gcbmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes events or delta operations into binary payload described in {@link EventsCodec}. Internal buffer is
+ * reused, so single writer could be used for many payloads - call {@link #reset()} before writing next one.
+ */
+public class EventsPayloadWriter {
+    private static final int INITIAL_CAPACITY = 512;
+
+    private byte[] buffer;
+    private int position;
+    private int recordsCount;
+    private Map<String, Integer> stringReferences;
+    private Map<Long, Integer> calendarReferences;
+    private List<String> calendarNames;
+
+    public EventsPayloadWriter() {
+        buffer = new byte[INITIAL_CAPACITY];
+        stringReferences = new HashMap<>();
+        calendarReferences = new HashMap<>();
+        calendarNames = new ArrayList<>();
+        reset();
+    }
+
+    public void reset() {
+        stringReferences.clear();
+        calendarReferences.clear();
+        calendarNames.clear();
+        recordsCount = 0;
+        position = EventsCodec.HEADER_SIZE;
+    }
+
+    public void writeEvent(long id, long startDate, String title, long calendarId, String calendarDisplayName) {
+        writeLong(id);
+        writeLong(startDate);
+        writeString(title);
+        writeCalendar(calendarId, calendarDisplayName);
+        recordsCount++;
+    }
+
+    public void writeOperation(EventsDelta.Operation operation) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) operation.getType();
+        if (operation.getType() == EventsDelta.OPERATION_REMOVE) {
+            writeLong(operation.getId());
+            recordsCount++;
+        } else {
+            Event event = operation.getEvent();
+            writeEvent(event.getId(), event.getStartDate(), event.getTitle(), event.getCalendarId(),
+                    event.getCalendarDisplayName());
+        }
+    }
+
+    public int getRecordsCount() {
+        return recordsCount;
+    }
+
+    /**
+     * @return copy of written payload with filled header, writer could be reset afterwards
+     */
+    public byte[] toByteArray() {
+        writeHeader();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeHeader() {
+        int end = position;
+        position = 0;
+        buffer[position++] = EventsCodec.VERSION;
+        writeInt(end - EventsCodec.LENGTH_PREFIXED_OFFSET);
+        writeInt(recordsCount);
+        position = end;
+    }
+
+    /**
+     * Strings are written once, following occurrences are written as reference to the first one.
+     */
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarInt(EventsCodec.NULL_REFERENCE);
+            return;
+        }
+        Integer reference = stringReferences.get(value);
+        if (reference != null) {
+            writeVarInt(reference);
+        } else {
+            reference = stringReferences.size() + 1;
+            stringReferences.put(value, reference);
+            writeVarInt(reference);
+            writeUtf8(value.getBytes(EventsCodec.UTF_8));
+        }
+    }
+
+    /**
+     * Calendars are written once to the calendars table, following occurrences are written as table index.
+     */
+    private void writeCalendar(long calendarId, String displayName) {
+        Integer reference = calendarReferences.get(calendarId);
+        if (reference != null && equalStrings(calendarNames.get(reference - 1), displayName)) {
+            writeVarInt(reference);
+        } else {
+            calendarNames.add(displayName);
+            reference = calendarNames.size();
+            calendarReferences.put(calendarId, reference);
+            writeVarInt(reference);
+            writeLong(calendarId);
+            if (displayName == null) {
+                writeVarInt(EventsCodec.NULL_REFERENCE);
+            } else {
+                writeVarInt(EventsCodec.NOT_NULL_STRING);
+                writeUtf8(displayName.getBytes(EventsCodec.UTF_8));
+            }
+        }
+    }
+
+    private void writeUtf8(byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private static boolean equalStrings(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int bytesToWrite) {
+        int required = position + bytesToWrite;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
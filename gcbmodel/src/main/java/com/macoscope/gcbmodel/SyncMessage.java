@@ -0,0 +1,65 @@
+package com.macoscope.gcbmodel;
+
+import java.util.List;
+
+/**
+ * Events update sent from handheld to watch. Snapshot carries whole events list, delta carries operations which must
+ * be applied to the snapshot with {@link #getBaseSequence()} sequence number. Each sent message gets next sequence
+ * number, so receiver can detect lost messages and ask for new snapshot.
+ */
+public class SyncMessage {
+    public static final long NO_SEQUENCE = -1;
+
+    private final long sequence;
+    private final long baseSequence;
+    private final List<Event> events;
+    private final EventsDelta delta;
+
+    private SyncMessage(long sequence, long baseSequence, List<Event> events, EventsDelta delta) {
+        this.sequence = sequence;
+        this.baseSequence = baseSequence;
+        this.events = events;
+        this.delta = delta;
+    }
+
+    public static SyncMessage snapshot(long sequence, List<Event> events) {
+        return new SyncMessage(sequence, NO_SEQUENCE, events, null);
+    }
+
+    public static SyncMessage delta(long baseSequence, long sequence, EventsDelta delta) {
+        return new SyncMessage(sequence, baseSequence, null, delta);
+    }
+
+    public boolean isSnapshot() {
+        return events != null;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * @return whole events list, null for delta message
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return operations to apply, null for snapshot message
+     */
+    public EventsDelta getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return true if delta could be applied to snapshot with given sequence number
+     */
+    public boolean followsSequence(long currentSequence) {
+        return !isSnapshot() && currentSequence != NO_SEQUENCE && baseSequence == currentSequence;
+    }
+}
@@ -0,0 +1,75 @@
+package com.macoscope.gcbmodel
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class EventTimelineSpec extends Specification {
+    List<Event> events = [new Event(3L, 3000L, "Lunch", "Home"), new Event(1L, 1000L, "Daily", "Work"),
+                          new Event(2L, 2000L, "Review", "Work")]
+
+    def "Should keep events sorted by start date"() {
+        when:
+        EventTimeline objectUnderTest = EventTimeline.fromEvents(events)
+        then:
+        objectUnderTest.size() == 3
+        objectUnderTest.toEvents()*.id == [1L, 2L, 3L]
+        objectUnderTest.getTitle(2) == "Lunch"
+        objectUnderTest.getCalendarDisplayName(1) == "Work"
+    }
+
+    def "Should order event from past before event from future"() {
+        when:
+        EventTimeline objectUnderTest = EventTimeline.fromEvents([new Event(1L, 2000L, "", ""),
+                                                                  new Event(0L, 1000L, "", "")])
+        then:
+        objectUnderTest.toEvents()*.id == [0L, 1L]
+        objectUnderTest.getStartDate(0) < objectUnderTest.getStartDate(1)
+    }
+
+    def "Should keep given order of events with the same start date"() {
+        when:
+        EventTimeline objectUnderTest = EventTimeline.fromEvents([new Event(1L, 1000L, "", ""),
+                                                                  new Event(0L, 1000L, "", "")])
+        then:
+        objectUnderTest.toEvents()*.id == [1L, 0L]
+    }
+
+    @Unroll
+    def "Should find event #expectedIndex as next event for #time time"() {
+        given:
+        EventTimeline objectUnderTest = EventTimeline.fromEvents(events)
+        expect:
+        objectUnderTest.indexOfNextEvent(time) == expectedIndex
+        where:
+        time  || expectedIndex
+        0L    || 0
+        999L  || 0
+        1000L || 1
+        2500L || 2
+        3000L || EventTimeline.NO_EVENT
+    }
+
+    def "Cursor should follow time forwards and backwards"() {
+        given:
+        EventTimeline.Cursor objectUnderTest = EventTimeline.fromEvents(events).newCursor()
+        expect:
+        objectUnderTest.moveTo(500L) == 0
+        objectUnderTest.moveTo(2000L) == 2
+        objectUnderTest.moveTo(5000L) == EventTimeline.NO_EVENT
+        objectUnderTest.moveTo(1500L) == 1
+    }
+
+    def "Should not find next event in empty timeline"() {
+        expect:
+        EventTimeline.fromEvents([]).indexOfNextEvent(0L) == EventTimeline.NO_EVENT
+        EventTimeline.empty().newCursor().moveTo(0L) == EventTimeline.NO_EVENT
+    }
+
+    def "Should keep null strings"() {
+        when:
+        EventTimeline objectUnderTest = EventTimeline.fromEvents([new Event(1L, 1000L, null, null)])
+        then:
+        objectUnderTest.getTitle(0) == null
+        objectUnderTest.getCalendarDisplayName(0) == null
+    }
+}
@@ -0,0 +1,90 @@
+package com.macoscope.gcbmodel
+
+import spock.lang.Specification
+
+class EventsCodecSpec extends Specification {
+    def "Should decode the same events which were encoded"() {
+        given:
+        List<Event> events = [new Event(1L, 1000L, "Daily", "Work"),
+                              new Event(Long.MAX_VALUE, Long.MIN_VALUE, "Zażółć gęślą jaźń", "Work"),
+                              new Event(3L, 3000L, null, null)]
+        when:
+        List<Event> decoded = EventsCodec.decode(EventsCodec.encode(events))
+        then:
+        decoded.size() == 3
+        decoded*.id == events*.id
+        decoded*.startDate == events*.startDate
+        decoded*.title == events*.title
+        decoded*.calendarDisplayName == events*.calendarDisplayName
+    }
+
+    def "Should decode empty events list"() {
+        expect:
+        EventsCodec.decode(EventsCodec.encode([])).isEmpty()
+    }
+
+    def "Should write repeated strings only once"() {
+        given:
+        String calendarName = "Some really long calendar display name"
+        List<Event> events = (1..10).collect { new Event(it, it, "Title", calendarName) }
+        when:
+        byte[] payload = EventsCodec.encode(events)
+        then:
+        new String(payload, "UTF-8").indexOf(calendarName) == new String(payload, "UTF-8").lastIndexOf(calendarName)
+    }
+
+    def "Should reuse decoded string instances"() {
+        given:
+        List<Event> events = [new Event(1L, 1L, "Title", "Work"), new Event(2L, 2L, "Title", "Work")]
+        when:
+        List<Event> decoded = EventsCodec.decode(EventsCodec.encode(events))
+        then:
+        decoded[0].calendarDisplayName.is(decoded[1].calendarDisplayName)
+    }
+
+    def "Should decode calendars from calendars table"() {
+        given:
+        List<Event> events = [new Event(1L, 1L, "Daily", 7L, "Work"), new Event(2L, 2L, "Lunch", 8L, "Home"),
+                              new Event(3L, 3L, "Review", 7L, "Work")]
+        when:
+        List<Event> decoded = EventsCodec.decode(EventsCodec.encode(events))
+        then:
+        decoded*.calendarId == [7L, 8L, 7L]
+        decoded*.calendarDisplayName == ["Work", "Home", "Work"]
+        decoded[0].calendarDisplayName.is(decoded[2].calendarDisplayName)
+    }
+
+    def "Should decode version 1 payload"() {
+        given:
+        byte[] payload = [1, 0, 0, 0, 26, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 5, 0, 0, 0, 0, 0, 0, 3, -24, 1, 1, 65, 2, 1,
+                          66] as byte[]
+        when:
+        List<Event> decoded = EventsCodec.decode(payload)
+        then:
+        decoded.size() == 1
+        decoded[0].id == 5L
+        decoded[0].startDate == 1000L
+        decoded[0].title == "A"
+        decoded[0].calendarId == Event.NO_CALENDAR_ID
+        decoded[0].calendarDisplayName == "B"
+    }
+
+    def "Should fail on unsupported payload version"() {
+        given:
+        byte[] payload = EventsCodec.encode([new Event(1L, 1L, "", "")])
+        payload[0] = 99
+        when:
+        EventsCodec.decode(payload)
+        then:
+        thrown(IOException)
+    }
+
+    def "Should fail on truncated payload"() {
+        given:
+        byte[] payload = EventsCodec.encode([new Event(1L, 1L, "Title", "Work")])
+        when:
+        EventsCodec.decode(Arrays.copyOf(payload, payload.length - 3))
+        then:
+        thrown(IOException)
+    }
+}
@@ -0,0 +1,58 @@
+package com.macoscope.gcbmodel
+
+import spock.lang.Specification
+
+class EventsDeltaSpec extends Specification {
+    def "Should be empty for unchanged events"() {
+        given:
+        List<Event> previous = [new Event(1L, 1000L, "Daily", "Work"), new Event(2L, 2000L, "Review", "Work")]
+        List<Event> current = [new Event(1L, 1000L, "Daily", "Work"), new Event(2L, 2000L, "Review", "Work")]
+        expect:
+        EventsDelta.between(previous, current).isEmpty()
+    }
+
+    def "Should describe added, updated and removed events"() {
+        given:
+        List<Event> previous = [new Event(1L, 1000L, "Daily", "Work"), new Event(2L, 2000L, "Review", "Work")]
+        List<Event> current = [new Event(2L, 2000L, "Code review", "Work"), new Event(3L, 3000L, "Lunch", "Home")]
+        when:
+        List<EventsDelta.Operation> operations = EventsDelta.between(previous, current).operations
+        then:
+        operations*.type == [EventsDelta.OPERATION_UPDATE, EventsDelta.OPERATION_ADD, EventsDelta.OPERATION_REMOVE]
+        operations*.id == [2L, 3L, 1L]
+    }
+
+    def "Should transform previous events into current events sorted by start date"() {
+        given:
+        List<Event> previous = [new Event(1L, 1000L, "Daily", "Work"), new Event(2L, 2000L, "Review", "Work"),
+                                new Event(3L, 3000L, "Lunch", "Home")]
+        List<Event> current = [new Event(4L, 500L, "Coffee", "Home"), new Event(2L, 2000L, "Review", "Work"),
+                               new Event(3L, 1500L, "Lunch", "Home")]
+        when:
+        List<Event> applied = EventsDelta.between(previous, current).applyTo(previous)
+        then:
+        applied*.id == [4L, 3L, 2L]
+        applied*.startDate == [500L, 1500L, 2000L]
+        previous*.id == [1L, 2L, 3L]
+    }
+
+    def "Should survive encoding"() {
+        given:
+        List<Event> previous = [new Event(1L, 1000L, "Daily", "Work"), new Event(2L, 2000L, "Review", "Work")]
+        List<Event> current = [new Event(2L, 2500L, null, "Work"), new Event(3L, 3000L, "Lunch", "Home")]
+        when:
+        EventsDelta decoded = EventsCodec.decodeDelta(EventsCodec.encodeDelta(EventsDelta.between(previous, current)))
+        List<Event> applied = decoded.applyTo(previous)
+        then:
+        applied*.id == [2L, 3L]
+        applied*.startDate == [2500L, 3000L]
+        applied*.title == [null, "Lunch"]
+        applied*.calendarDisplayName == ["Work", "Home"]
+    }
+
+    def "Should detect duplicated ids of recurring events instances"() {
+        expect:
+        !EventsDelta.hasUniqueIds([new Event(1L, 1000L, "Standup", "Work"), new Event(1L, 2000L, "Standup", "Work")])
+        EventsDelta.hasUniqueIds([new Event(1L, 1000L, "Standup", "Work"), new Event(2L, 2000L, "Standup", "Work")])
+    }
+}
@@ -3,6 +3,7 @@ package com.macoscope.gcbwatchface;
 import android.app.Application;
 
 import com.evernote.android.job.JobManager;
+import com.macoscope.gcbwatchface.service.CalendarChangeObserver;
 import com.macoscope.gcbwatchface.service.SyncJobCreator;
 
 public class App extends Application {
@@ -10,5 +11,6 @@ public class App extends Application {
     public void onCreate() {
         super.onCreate();
         JobManager.create(this).addJobCreator(new SyncJobCreator());
+        CalendarChangeObserver.update(this);
     }
 }
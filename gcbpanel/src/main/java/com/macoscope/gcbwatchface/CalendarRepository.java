@@ -6,15 +6,18 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.provider.CalendarContract.Calendars;
 import android.provider.CalendarContract.Instances;
+import android.util.Log;
+import android.util.LongSparseArray;
 
 import com.eccyan.optional.Optional;
-import com.macoscope.gcbmodel.Event;
+import com.macoscope.gcbmodel.EventsPayloadWriter;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class CalendarRepository {
+    private static final String TAG = "CalendarRepository";
 
     // Projection array. Creating indices for this array instead of doing  dynamic lookups improves performance.
     private static final String[] CALENDAR_PROJECTION = new String[]{
@@ -26,26 +29,37 @@ public class CalendarRepository {
     private static final int PROJECTION_CALENDAR_ID_INDEX = 0;
     private static final int PROJECTION_CALENDAR_DISPLAY_NAME_INDEX = 1;
 
-    private static final String CALENDAR_SELECTION = Calendars._ID + " = ?";
     private static final String CALENDARS_SELECTION = Calendars.ACCOUNT_NAME + " = ?";
 
     private static final String[] INSTANCE_PROJECTION = new String[]{
             Instances.EVENT_ID,
             Instances.BEGIN,
-            Instances.TITLE
+            Instances.TITLE,
+            Instances.CALENDAR_ID
     };
 
     // The indices for the projection array above.
     private static final int PROJECTION_INSTANCE_ID_INDEX = 0;
     private static final int PROJECTION_INSTANCE_BEGIN_INDEX = 1;
     private static final int PROJECTION_INSTANCE_TITLE_INDEX = 2;
+    private static final int PROJECTION_INSTANCE_CALENDAR_ID_INDEX = 3;
 
-    private static final String INSTANCE_SELECTION = Instances.CALENDAR_ID + " = ?" +
-            " AND " + Instances.ALL_DAY + " = 0" +
+    /**
+     * Follows calendar ids selection, arguments are start and end of time range.
+     */
+    private static final String INSTANCE_TIME_SELECTION = " AND " + Instances.ALL_DAY + " = 0" +
             " AND " + Instances.BEGIN + " > ? " +
             " AND " + Instances.BEGIN + " <= ?";
 
-    private static final String INSTANCE_ORDER = Instances.BEGIN + " ASC";
+    /**
+     * Event id breaks ties, so the same events always give the same payload and its hash.
+     */
+    private static final String INSTANCE_ORDER = Instances.BEGIN + " ASC, " + Instances.EVENT_ID + " ASC";
+
+    /**
+     * Added to the end of Instances URI window, so events beginning right at the end of lookahead are expanded.
+     */
+    private static final long EXPANSION_MARGIN_MS = TimeUnit.MINUTES.toMillis(1);
 
     private ContentResolver contentResolver;
 
@@ -57,57 +71,118 @@ public class CalendarRepository {
         Uri uri = Calendars.CONTENT_URI;
         Cursor cursor = contentResolver.query(uri, CALENDAR_PROJECTION, CALENDARS_SELECTION, new String[]{account},
                 null);
-        if (cursor != null && cursor.getCount() > 0) {
-            List<CalendarModel> calendarModels = new ArrayList<>(cursor.getCount());
+        if (cursor == null) {
+            return Optional.empty();
+        }
+        try {
+            int count = cursor.getCount();
+            if (count == 0) {
+                return Optional.empty();
+            }
+            List<CalendarModel> calendarModels = new ArrayList<>(count);
             while (cursor.moveToNext()) {
                 CalendarModel calendarModel = new CalendarModel(cursor.getLong(PROJECTION_CALENDAR_ID_INDEX),
                         cursor.getString(PROJECTION_CALENDAR_DISPLAY_NAME_INDEX));
                 calendarModels.add(calendarModel);
             }
-            cursor.close();
             return Optional.of(calendarModels);
+        } finally {
+            cursor.close();
         }
-        return Optional.empty();
     }
 
 
-    private Optional<String> getCalendarDisplayName(long calendarId) {
-        Uri uri = Calendars.CONTENT_URI;
-        Cursor cursor = contentResolver.query(uri, CALENDAR_PROJECTION, CALENDAR_SELECTION,
-                new String[]{Long.toString(calendarId)}, null);
-        Optional<String> calendarName = Optional.empty();
-        if (cursor != null && cursor.getCount() > 0) {
-            if (cursor.moveToFirst()) {
-                calendarName = Optional.of(cursor.getString(PROJECTION_CALENDAR_DISPLAY_NAME_INDEX));
+    /**
+     * Display names of all given calendars resolved with a single query.
+     */
+    private LongSparseArray<String> getCalendarDisplayNames(long[] calendarIds) {
+        LongSparseArray<String> calendarNames = new LongSparseArray<>(calendarIds.length);
+        Cursor cursor = contentResolver.query(Calendars.CONTENT_URI, CALENDAR_PROJECTION,
+                getIdsSelection(Calendars._ID, calendarIds.length), getIdsSelectionArgs(calendarIds, 0), null);
+        if (cursor == null) {
+            return calendarNames;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                calendarNames.put(cursor.getLong(PROJECTION_CALENDAR_ID_INDEX),
+                        cursor.getString(PROJECTION_CALENDAR_DISPLAY_NAME_INDEX));
             }
+        } finally {
             cursor.close();
         }
-        return calendarName;
+        return calendarNames;
+    }
+
+    private static String getIdsSelection(String column, int idsCount) {
+        StringBuilder selection = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < idsCount; i++) {
+            selection.append(i == 0 ? "?" : ",?");
+        }
+        return selection.append(')').toString();
+    }
+
+    /**
+     * @param extraArgs count of arguments left for selection following ids
+     */
+    private static String[] getIdsSelectionArgs(long[] ids, int extraArgs) {
+        String[] selectionArgs = new String[ids.length + extraArgs];
+        for (int i = 0; i < ids.length; i++) {
+            selectionArgs[i] = Long.toString(ids[i]);
+        }
+        return selectionArgs;
     }
 
-    public Optional<List<Event>> getEvents(long calendarId, long timeInterval, TimeUnit timeUnit) {
-        Optional<String> calendarNameOptional = getCalendarDisplayName(calendarId);
-        String calendarName = calendarNameOptional.isPresent() ? calendarNameOptional.get() : "";
+    /**
+     * Writes events of all given calendars starting within lookahead to the payload writer, ordered by start date.
+     * Rows are copied from cursor straight into the payload, no events list is built. All calendars are fetched with
+     * one query.
+     * Recurring events are expanded by the provider only within the Instances URI window, so the window is bounded
+     * to lookahead instead of open ended.
+     */
+    public void writeEvents(long[] calendarIds, long lookahead, TimeUnit timeUnit, EventsPayloadWriter writer) {
+        if (calendarIds.length == 0) {
+            return;
+        }
+        LongSparseArray<String> calendarNames = getCalendarDisplayNames(calendarIds);
         Uri.Builder builder = Instances.CONTENT_URI.buildUpon();
         long now = System.currentTimeMillis();
-        long timeTo = now + timeUnit.toMillis(timeInterval);
+        long timeTo = now + timeUnit.toMillis(lookahead);
+        long expansionEnd = timeTo + EXPANSION_MARGIN_MS;
         ContentUris.appendId(builder, now);
-        ContentUris.appendId(builder, Long.MAX_VALUE);
-
-        Cursor cursor = contentResolver.query(builder.build(), INSTANCE_PROJECTION,
-                INSTANCE_SELECTION, new String[]{Long.toString(calendarId), Long.toString(now), Long.toString(timeTo)},
+        ContentUris.appendId(builder, expansionEnd);
+
+        String selection = getIdsSelection(Instances.CALENDAR_ID, calendarIds.length) + INSTANCE_TIME_SELECTION;
+        String[] selectionArgs = getIdsSelectionArgs(calendarIds, 2);
+        selectionArgs[calendarIds.length] = Long.toString(now);
+        selectionArgs[calendarIds.length + 1] = Long.toString(timeTo);
+        long queryStart = System.nanoTime();
+        Cursor cursor = contentResolver.query(builder.build(), INSTANCE_PROJECTION, selection, selectionArgs,
                 INSTANCE_ORDER);
-        if (cursor != null && cursor.getCount() > 0) {
-            List<Event> events = new ArrayList<>(cursor.getCount());
+        if (cursor == null) {
+            return;
+        }
+        try {
+            logInstancesQuery(cursor, expansionEnd - now, queryStart);
             while (cursor.moveToNext()) {
-                Event event = new Event(cursor.getLong(PROJECTION_INSTANCE_ID_INDEX),
+                long calendarId = cursor.getLong(PROJECTION_INSTANCE_CALENDAR_ID_INDEX);
+                writer.writeEvent(cursor.getLong(PROJECTION_INSTANCE_ID_INDEX),
                         cursor.getLong(PROJECTION_INSTANCE_BEGIN_INDEX),
-                        cursor.getString(PROJECTION_INSTANCE_TITLE_INDEX), calendarName);
-                events.add(event);
+                        cursor.getString(PROJECTION_INSTANCE_TITLE_INDEX), calendarId,
+                        calendarNames.get(calendarId, ""));
             }
+        } finally {
             cursor.close();
-            return Optional.of(events);
         }
-        return Optional.empty();
+    }
+
+    /**
+     * Provider doesn't tell how many instances it expanded, so window span and returned rows are logged with time of
+     * the query including the first cursor fill.
+     */
+    private void logInstancesQuery(Cursor cursor, long windowMillis, long queryStartNanos) {
+        int rows = cursor.getCount();
+        long durationNanos = System.nanoTime() - queryStartNanos;
+        Log.d(TAG, "Instances query window: " + TimeUnit.MILLISECONDS.toMinutes(windowMillis) + " min, rows: " + rows
+                + ", took: " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms");
     }
 }
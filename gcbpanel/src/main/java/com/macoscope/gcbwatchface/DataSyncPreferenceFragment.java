@@ -4,8 +4,10 @@ import android.app.Dialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
+import android.preference.PreferenceManager;
 import android.support.design.widget.Snackbar;
 
 import com.google.android.gms.common.GoogleApiAvailability;
@@ -22,10 +24,13 @@ public class DataSyncPreferenceFragment extends PreferenceFragment implements Sy
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Calendar selection stored by older version is read by preference while inflating, so it's migrated first.
+        SyncCalendarsPreference.migrate(getActivity(), PreferenceManager.getDefaultSharedPreferences(getActivity()));
         addPreferencesFromResource(R.xml.pref_data_sync);
         ListPreference syncFrequency = (ListPreference) findPreference(getString(R.string.pref_key_sync_frequency));
         Preference accountPreference = findPreference(getString(R.string.pref_key_sync_account));
-        ListPreference calendarPreferenceList = (ListPreference) findPreference(getString(R.string.pref_key_sync_calendar));
+        MultiSelectListPreference calendarPreferenceList = (MultiSelectListPreference) findPreference(
+                getString(R.string.pref_key_sync_calendars));
         syncPreferencesPresenter = new SyncPreferencesPresenter(this, getActivity(), syncFrequency, accountPreference,
                 calendarPreferenceList, findPreference(getString(R.string.pref_key_sync_now)));
     }
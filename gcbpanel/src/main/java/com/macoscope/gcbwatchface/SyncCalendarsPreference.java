@@ -0,0 +1,69 @@
+package com.macoscope.gcbwatchface;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Calendars selected for sync, stored as a set of calendar id strings. Single calendar id stored by older versions
+ * under legacy key is moved to the set on first access.
+ */
+public class SyncCalendarsPreference {
+    private static final long[] NO_CALENDARS = new long[0];
+
+    private SyncCalendarsPreference() {
+    }
+
+    public static void migrate(Context context, SharedPreferences sharedPreferences) {
+        String legacyKey = context.getString(R.string.pref_key_sync_calendar);
+        if (sharedPreferences.contains(legacyKey)) {
+            String calendarId = sharedPreferences.getString(legacyKey, "");
+            Set<String> calendarIds = new HashSet<>();
+            if (!calendarId.isEmpty()) {
+                calendarIds.add(calendarId);
+            }
+            sharedPreferences.edit()
+                    .remove(legacyKey)
+                    .putStringSet(context.getString(R.string.pref_key_sync_calendars), calendarIds)
+                    .commit();
+        }
+    }
+
+    public static boolean isSelected(Context context, SharedPreferences sharedPreferences) {
+        return !getValues(context, sharedPreferences).isEmpty();
+    }
+
+    public static Set<String> getValues(Context context, SharedPreferences sharedPreferences) {
+        migrate(context, sharedPreferences);
+        return sharedPreferences.getStringSet(context.getString(R.string.pref_key_sync_calendars),
+                Collections.<String>emptySet());
+    }
+
+    public static long[] getCalendarIds(Context context, SharedPreferences sharedPreferences) {
+        return toCalendarIds(getValues(context, sharedPreferences));
+    }
+
+    /**
+     * Values which are not calendar ids are skipped.
+     */
+    public static long[] toCalendarIds(Set<String> values) {
+        if (values.isEmpty()) {
+            return NO_CALENDARS;
+        }
+        long[] calendarIds = new long[values.size()];
+        int count = 0;
+        for (String value : values) {
+            try {
+                calendarIds[count] = Long.parseLong(value);
+                count++;
+            } catch (NumberFormatException numberFormatException) {
+                // Skip it, events from remaining calendars are still synced.
+            }
+        }
+        return count == calendarIds.length ? calendarIds : Arrays.copyOf(calendarIds, count);
+    }
+}
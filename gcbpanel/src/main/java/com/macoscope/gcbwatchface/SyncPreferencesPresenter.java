@@ -6,6 +6,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
@@ -17,10 +18,14 @@ import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
 import com.google.api.client.util.ExponentialBackOff;
 import com.google.api.services.calendar.CalendarScopes;
+import com.macoscope.gcbwatchface.service.CalendarChangeObserver;
 import com.macoscope.gcbwatchface.service.SyncJobScheduler;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import pub.devrel.easypermissions.AfterPermissionGranted;
 import pub.devrel.easypermissions.EasyPermissions;
@@ -48,7 +53,7 @@ public class SyncPreferencesPresenter {
     private GoogleAccountCredential googleAccountCredential;
     private Context context;
     private Preference accountPreference;
-    private ListPreference calendarListPreference;
+    private MultiSelectListPreference calendarListPreference;
     private ListPreference syncFrequencyPreference;
     private CalendarUseCase calendarUseCase;
     private CompositeSubscription compositeSubscription;
@@ -64,7 +69,12 @@ public class SyncPreferencesPresenter {
     private Preference.OnPreferenceChangeListener bindPreferenceSummaryToValueListener =
             new Preference.OnPreferenceChangeListener() {
                 @Override
+                @SuppressWarnings("unchecked")
                 public boolean onPreferenceChange(Preference preference, Object value) {
+                    if (preference instanceof MultiSelectListPreference) {
+                        setSummaryFromSelectedValues((MultiSelectListPreference) preference, (Set<String>) value);
+                        return true;
+                    }
                     String stringValue = value.toString();
                     if (preference instanceof ListPreference) {
                         ListPreference listPreference = (ListPreference) preference;
@@ -84,10 +94,11 @@ public class SyncPreferencesPresenter {
                     String syncFrequencyPreferenceKey = syncFrequencyPreference.getKey();
                     if (calendarPreferenceKey.equals(key) || syncFrequencyPreferenceKey.equals(key)) {
 
-                        String calendarId = sharedPreferences.getString(calendarPreferenceKey, "");
+                        long[] calendarIds = SyncCalendarsPreference.getCalendarIds(context, sharedPreferences);
                         String syncFrequency = sharedPreferences.getString(syncFrequencyPreferenceKey, "");
 
-                        scheduleUpdateJob(calendarId, syncFrequency);
+                        scheduleUpdateJob(calendarIds, syncFrequency);
+                        CalendarChangeObserver.update(context);
                     } else if (accountPreference.getKey().equals(key)) {
                         clearCalendarsPreference();
                     }
@@ -96,7 +107,8 @@ public class SyncPreferencesPresenter {
 
     public SyncPreferencesPresenter(SyncPreferencesView syncPreferencesView, Context context,
                                     final ListPreference syncFrequencyPreference, final Preference accountPreference,
-                                    final ListPreference calendarListPreference, Preference syncNowPreference) {
+                                    final MultiSelectListPreference calendarListPreference,
+                                    Preference syncNowPreference) {
         this.syncPreferencesView = syncPreferencesView;
         this.context = context;
         this.accountPreference = accountPreference;
@@ -126,12 +138,12 @@ public class SyncPreferencesPresenter {
     }
 
     private void forceRefreshIfParametersStored() {
-        String calendarPreferenceKey = calendarListPreference.getKey();
         String syncFrequencyPreferenceKey = syncFrequencyPreference.getKey();
-        if (sharedPreferences.contains(calendarPreferenceKey) && sharedPreferences.contains(syncFrequencyPreferenceKey)) {
-            String calendarId = sharedPreferences.getString(calendarPreferenceKey, "");
+        if (SyncCalendarsPreference.isSelected(context, sharedPreferences)
+                && sharedPreferences.contains(syncFrequencyPreferenceKey)) {
+            long[] calendarIds = SyncCalendarsPreference.getCalendarIds(context, sharedPreferences);
             String syncFrequency = sharedPreferences.getString(syncFrequencyPreferenceKey, "");
-            scheduleUpdateJob(calendarId, syncFrequency);
+            scheduleUpdateJob(calendarIds, syncFrequency);
         } else {
             syncPreferencesView.showMessage(R.string.pref_sync_now_error);
         }
@@ -142,19 +154,19 @@ public class SyncPreferencesPresenter {
         sharedPreferences.unregisterOnSharedPreferenceChangeListener(sharedPreferenceChangeListener);
     }
 
-    private void scheduleUpdateJob(String calendarIdString, String syncFrequencyString) {
-        long calendarId = -1;
+    /**
+     * @param calendarIds empty when no calendar is selected, watch will receive empty events list then
+     */
+    private void scheduleUpdateJob(long[] calendarIds, String syncFrequencyString) {
         long syncFrequency = DEFAULT_SYNC_INTERVAL_MINUTES;
 
         try {
-            calendarId = Long.parseLong(calendarIdString);
             syncFrequency = Long.parseLong(syncFrequencyString);
         } catch (NumberFormatException numberFormatException) {
-            // Do nothing, use default values it this case. Watch will receive empty events list because of empty
-            // events list for selected account.
+            // Do nothing, use default value in this case.
         }
 
-        syncJobScheduler.scheduleNewSyncJob(calendarId, syncFrequency);
+        syncJobScheduler.scheduleNewSyncJob(calendarIds, syncFrequency);
     }
 
     private void cancelScheduledJobs() {
@@ -186,8 +198,13 @@ public class SyncPreferencesPresenter {
 
         // Trigger the listener immediately with the preference's
         // current value.
-        bindPreferenceSummaryToValueListener.onPreferenceChange(preference,
-                sharedPreferences.getString(preference.getKey(), ""));
+        Object value;
+        if (preference instanceof MultiSelectListPreference) {
+            value = sharedPreferences.getStringSet(preference.getKey(), Collections.<String>emptySet());
+        } else {
+            value = sharedPreferences.getString(preference.getKey(), "");
+        }
+        bindPreferenceSummaryToValueListener.onPreferenceChange(preference, value);
     }
 
     private void setSummaryFromSelectedValue(ListPreference listPreference, CharSequence newValue, CharSequence empty) {
@@ -197,6 +214,17 @@ public class SyncPreferencesPresenter {
         listPreference.setSummary(index >= 0 ? listPreference.getEntries()[index] : empty);
     }
 
+    private void setSummaryFromSelectedValues(MultiSelectListPreference listPreference, Set<String> values) {
+        List<CharSequence> selectedEntries = new ArrayList<>(values.size());
+        for (String value : values) {
+            int index = listPreference.findIndexOfValue(value);
+            if (index >= 0) {
+                selectedEntries.add(listPreference.getEntries()[index]);
+            }
+        }
+        listPreference.setSummary(selectedEntries.isEmpty() ? noneSelection : TextUtils.join(", ", selectedEntries));
+    }
+
     private void chooseAccountIfGooglePlayServicesAvailable() {
         if (!isGooglePlayServicesAvailable()) {
             acquireGooglePlayServices();
@@ -226,11 +254,8 @@ public class SyncPreferencesPresenter {
     }
 
     private void restoreCalendarsSummary() {
-        String calendarListKey = calendarListPreference.getKey();
-        if (sharedPreferences.contains(calendarListKey)) {
-            setSummaryFromSelectedValue(calendarListPreference, sharedPreferences.getString(calendarListKey, ""),
-                    noneSelection);
-        }
+        setSummaryFromSelectedValues(calendarListPreference,
+                SyncCalendarsPreference.getValues(context, sharedPreferences));
     }
 
     private void initCalendarUseCase() {
@@ -403,6 +428,7 @@ public class SyncPreferencesPresenter {
                 break;
             }
             case REQUEST_PERMISSION_READ_CALENDAR: {
+                CalendarChangeObserver.update(context);
                 loadAvailableCalendarsIfPermissionsGranted(true);
                 break;
             }
@@ -0,0 +1,125 @@
+package com.macoscope.gcbwatchface.service;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.provider.CalendarContract;
+import android.support.v4.content.ContextCompat;
+
+import com.macoscope.gcbwatchface.SyncCalendarsPreference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs sync job when calendar data changes, so edits reach watch without waiting for periodic sync. Provider notifies
+ * about every changed row, so changes are debounced: sync runs after changes stop for {@link #DEBOUNCE_MS}, but no
+ * later than {@link #MAX_DELAY_MS} after the first of them. Works while app process is alive, periodic sync job covers
+ * the rest.
+ * <p>
+ * Provider also notifies when it expands instances for our own Instances query. Changes noticed while sync job
+ * queries or shortly after are ignored, otherwise each sync would schedule the next one.
+ */
+public class CalendarChangeObserver extends ContentObserver {
+    private static final long DEBOUNCE_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final long MAX_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long OWN_QUERY_QUIET_MS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final AtomicInteger runningOwnQueries = new AtomicInteger();
+    private static volatile long ownQueryEndTime = -OWN_QUERY_QUIET_MS;
+    private static CalendarChangeObserver instance;
+
+    private final Context context;
+    private final Handler handler;
+    private long firstChangeTime;
+    private boolean syncPending;
+
+    private final Runnable syncRunnable = new Runnable() {
+        @Override
+        public void run() {
+            syncPending = false;
+            runSyncJob();
+        }
+    };
+
+    private CalendarChangeObserver(Context context, Handler handler) {
+        super(handler);
+        this.context = context;
+        this.handler = handler;
+    }
+
+    /**
+     * Registers observer while calendars are selected for sync and can be read, unregisters it otherwise. Must be
+     * called on main thread whenever selection or permission changes.
+     */
+    public static void update(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        boolean syncConfigured = hasReadCalendarPermission(applicationContext)
+                && getCalendarIds(applicationContext).length > 0;
+        if (syncConfigured && instance == null) {
+            instance = new CalendarChangeObserver(applicationContext, new Handler(Looper.getMainLooper()));
+            instance.register();
+        } else if (!syncConfigured && instance != null) {
+            instance.unregister();
+            instance = null;
+        }
+    }
+
+    static void onOwnQueryStarted() {
+        runningOwnQueries.incrementAndGet();
+    }
+
+    static void onOwnQueryFinished() {
+        ownQueryEndTime = SystemClock.elapsedRealtime();
+        runningOwnQueries.decrementAndGet();
+    }
+
+    private void register() {
+        context.getContentResolver().registerContentObserver(CalendarContract.Events.CONTENT_URI, true, this);
+        context.getContentResolver().registerContentObserver(CalendarContract.Calendars.CONTENT_URI, true, this);
+    }
+
+    private void unregister() {
+        context.getContentResolver().unregisterContentObserver(this);
+        handler.removeCallbacks(syncRunnable);
+        syncPending = false;
+    }
+
+    @Override
+    public void onChange(boolean selfChange) {
+        long now = SystemClock.elapsedRealtime();
+        if (runningOwnQueries.get() > 0 || now - ownQueryEndTime < OWN_QUERY_QUIET_MS) {
+            return;
+        }
+        if (!syncPending) {
+            syncPending = true;
+            firstChangeTime = now;
+        }
+        handler.removeCallbacks(syncRunnable);
+        handler.postDelayed(syncRunnable, Math.min(DEBOUNCE_MS, firstChangeTime + MAX_DELAY_MS - now));
+    }
+
+    private void runSyncJob() {
+        if (!hasReadCalendarPermission(context)) {
+            return;
+        }
+        long[] calendarIds = getCalendarIds(context);
+        if (calendarIds.length > 0) {
+            new SyncJobScheduler().runSyncJob(calendarIds);
+        }
+    }
+
+    private static boolean hasReadCalendarPermission(Context context) {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CALENDAR)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static long[] getCalendarIds(Context context) {
+        return SyncCalendarsPreference.getCalendarIds(context, PreferenceManager.getDefaultSharedPreferences(context));
+    }
+}
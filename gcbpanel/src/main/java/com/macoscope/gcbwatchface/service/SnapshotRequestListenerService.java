@@ -0,0 +1,29 @@
+package com.macoscope.gcbwatchface.service;
+
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.WearableListenerService;
+import com.macoscope.gcbmodel.CommunicationConfig;
+import com.macoscope.gcbwatchface.SyncCalendarsPreference;
+
+/**
+ * Sends whole events list when watch reports it missed some events update.
+ */
+public class SnapshotRequestListenerService extends WearableListenerService {
+    private static final String TAG = "SnapshotRequest";
+
+    @Override
+    public void onMessageReceived(MessageEvent messageEvent) {
+        if (CommunicationConfig.EVENTS_SNAPSHOT_REQUEST_PATH.equals(messageEvent.getPath())) {
+            long[] calendarIds = SyncCalendarsPreference.getCalendarIds(this,
+                    PreferenceManager.getDefaultSharedPreferences(this));
+            if (calendarIds.length > 0) {
+                new SyncJobScheduler().runSnapshotSyncJob(calendarIds);
+            } else {
+                Log.v(TAG, "Calendars not selected, snapshot request ignored");
+            }
+        }
+    }
+}
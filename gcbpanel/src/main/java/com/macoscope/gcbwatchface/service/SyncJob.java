@@ -1,73 +1,223 @@
 package com.macoscope.gcbwatchface.service;
 
 import android.support.annotation.NonNull;
+import android.util.Base64;
 import android.util.Log;
 
 import com.eccyan.optional.Optional;
 import com.evernote.android.job.Job;
 import com.evernote.android.job.util.support.PersistableBundleCompat;
-import com.google.gson.Gson;
+import com.google.android.gms.wearable.Node;
 import com.macoscope.gcbwatchface.CalendarRepository;
 import com.macoscope.gcbmodel.CommunicationConfig;
 import com.macoscope.gcbmodel.Event;
+import com.macoscope.gcbmodel.EventsCodec;
+import com.macoscope.gcbmodel.EventsDelta;
+import com.macoscope.gcbmodel.EventsPayloadWriter;
+import com.macoscope.gcbmodel.SyncMessage;
 import com.patloew.rxwear.GoogleAPIConnectionException;
 import com.patloew.rxwear.RxWear;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import rx.functions.Action1;
-
 class SyncJob extends Job {
     private static final int MINUTES_LIMIT_FOR_UPCOMING_EVENTS = 55;
+    private static final String HASH_ALGORITHM = "SHA-1";
     public static final String TAG = "gcb_watchface_sync_job";
     public static final String TAG_AD_HOC = "gcb_watchface_sync_job_ad_hoc";
-    public static final String KEY_CALENDAR_ID = "calendarId";
+    public static final String KEY_CALENDAR_IDS = "calendarIds";
+    /**
+     * Single calendar id of periodic jobs persisted by older versions.
+     */
+    private static final String KEY_LEGACY_CALENDAR_ID = "calendarId";
+    private static final long NO_CALENDAR_ID = -1;
+    /**
+     * Send whole events list even if watch could be updated with delta.
+     */
+    public static final String KEY_FULL_SNAPSHOT = "fullSnapshot";
+    /**
+     * Keeps its grown buffer and string tables across runs. Ad hoc and periodic jobs could run at the same time, so
+     * it's used only while holding its lock.
+     */
+    private static final EventsPayloadWriter PAYLOAD_WRITER = new EventsPayloadWriter();
 
     @NonNull
     @Override
     protected Result onRunJob(Params params) {
         PersistableBundleCompat extras = params.getExtras();
-        long calendarId = extras.getLong(KEY_CALENDAR_ID, -1);
+        long[] calendarIds = getCalendarIds(extras);
+        boolean fullSnapshot = extras.getBoolean(KEY_FULL_SNAPSHOT, false);
 
         if (!isCanceled()) {
             CalendarRepository calendarRepository = new CalendarRepository(getContext().getContentResolver());
-            if (calendarId != -1) {
-                Optional<List<Event>> eventsOptional = calendarRepository.getEvents(calendarId,
-                        MINUTES_LIMIT_FOR_UPCOMING_EVENTS, TimeUnit.MINUTES);
-                if (eventsOptional.isPresent()) {
-                    sendEvents(eventsOptional.get());
-                    return Result.SUCCESS;
+            byte[] snapshotPayload;
+            synchronized (PAYLOAD_WRITER) {
+                PAYLOAD_WRITER.reset();
+                CalendarChangeObserver.onOwnQueryStarted();
+                try {
+                    calendarRepository.writeEvents(calendarIds, MINUTES_LIMIT_FOR_UPCOMING_EVENTS, TimeUnit.MINUTES,
+                            PAYLOAD_WRITER);
+                } finally {
+                    CalendarChangeObserver.onOwnQueryFinished();
                 }
+                snapshotPayload = PAYLOAD_WRITER.toByteArray();
             }
-            sendEvents(new ArrayList<Event>());
+            syncEvents(snapshotPayload, fullSnapshot);
         }
         return Result.SUCCESS;
     }
 
-    private void sendEvents(List<Event> eventList) {
+    private long[] getCalendarIds(PersistableBundleCompat extras) {
+        long[] calendarIds = extras.getLongArray(KEY_CALENDAR_IDS);
+        if (calendarIds != null) {
+            return calendarIds;
+        }
+        long calendarId = extras.getLong(KEY_LEGACY_CALENDAR_ID, NO_CALENDAR_ID);
+        return calendarId != NO_CALENDAR_ID ? new long[]{calendarId} : new long[0];
+    }
+
+    /**
+     * Sends events to connected nodes which didn't receive exactly these events yet. Nodes are compared by hash of
+     * encoded events list, so nodes which missed previous syncs are updated even if events didn't change since then.
+     * Unchanged events are detected by comparing payload with the stored one. Events are decoded only to compute delta,
+     * snapshots are sent as encoded. Sequence is incremented only when events changed.
+     *
+     * @param snapshotPayload events list encoded with {@link EventsCodec}
+     */
+    private void syncEvents(byte[] snapshotPayload, boolean fullSnapshot) {
+        SyncStateStore syncStateStore = new SyncStateStore(getContext());
         RxWear.init(getContext());
-        Gson gson = new Gson();
-        final String eventsJson = gson.toJson(eventList);
-        RxWear.Message.SendDataMap.toAllRemoteNodes(CommunicationConfig.EVENTS_LIST_PATH)
-                .putString(CommunicationConfig.EVENTS_LIST_DATA_KEY, eventsJson)
-                .toObservable().subscribe(new Action1<Integer>() {
-            @Override
-            public void call(Integer integer) {
-                Log.d(getParams().getTag(), "JSON send to watch: " + eventsJson);
-            }
-        }, new Action1<Throwable>() {
-            @Override
-            public void call(Throwable throwable) {
-                if (throwable instanceof GoogleAPIConnectionException) {
-                    Log.v(TAG, "Android Wear app is not installed");
-                } else {
-                    Log.v(TAG, "Update events error", throwable);
+        List<String> nodeIds = getConnectedNodeIds();
+        String eventsHash = getHash(snapshotPayload);
+        synchronized (SyncStateStore.SYNC_LOCK) {
+            List<String> outdatedNodeIds = new ArrayList<>(nodeIds.size());
+            for (String nodeId : nodeIds) {
+                if (fullSnapshot || !eventsHash.equals(syncStateStore.getDeliveredHash(nodeId))) {
+                    outdatedNodeIds.add(nodeId);
                 }
             }
-        });
+            syncStateStore.countSkipped(nodeIds.size() - outdatedNodeIds.size());
+            if (outdatedNodeIds.isEmpty()) {
+                Log.d(getParams().getTag(), "Events not changed since last sync, nodes: " + nodeIds.size() + ", "
+                        + syncStateStore.getCountersSummary());
+                return;
+            }
+            sendEvents(syncStateStore, outdatedNodeIds, snapshotPayload, eventsHash, fullSnapshot);
+        }
+    }
+
+    /**
+     * Must be called holding {@link SyncStateStore#SYNC_LOCK}, messages are sent before it returns.
+     */
+    private void sendEvents(SyncStateStore syncStateStore, List<String> outdatedNodeIds, byte[] snapshotPayload,
+                            String eventsHash, boolean fullSnapshot) {
+        long baseSequence = syncStateStore.getSequence();
+        Optional<byte[]> previousPayload = syncStateStore.getSnapshotPayload();
+        long sequence = baseSequence;
+        Optional<byte[]> deltaPayload = Optional.empty();
+        // Unchanged events mean only nodes which missed earlier syncs are outdated, they get current sequence.
+        if (!previousPayload.isPresent() || !Arrays.equals(previousPayload.get(), snapshotPayload)) {
+            sequence = baseSequence + 1;
+            if (!fullSnapshot && previousPayload.isPresent()) {
+                deltaPayload = encodeDelta(previousPayload.get(), snapshotPayload);
+            }
+            syncStateStore.save(sequence, snapshotPayload);
+        }
+        for (String nodeId : outdatedNodeIds) {
+            if (deltaPayload.isPresent()) {
+                sendSyncMessage(syncStateStore, nodeId, sequence, baseSequence, deltaPayload.get(), eventsHash);
+            } else {
+                sendSyncMessage(syncStateStore, nodeId, sequence, SyncMessage.NO_SEQUENCE, snapshotPayload,
+                        eventsHash);
+            }
+        }
+    }
+
+    /**
+     * Both events lists are decoded only here, snapshots are sent as encoded.
+     *
+     * @return encoded delta, empty if previous payload can't be decoded or events ids aren't unique
+     */
+    private static Optional<byte[]> encodeDelta(byte[] previousPayload, byte[] snapshotPayload) {
+        Optional<List<Event>> previousEvents = SyncStateStore.decodeSnapshot(previousPayload);
+        if (!previousEvents.isPresent()) {
+            return Optional.empty();
+        }
+        List<Event> events = decodeEvents(snapshotPayload);
+        if (!EventsDelta.hasUniqueIds(previousEvents.get()) || !EventsDelta.hasUniqueIds(events)) {
+            return Optional.empty();
+        }
+        return Optional.of(EventsCodec.encodeDelta(EventsDelta.between(previousEvents.get(), events)));
+    }
+
+    private static List<Event> decodeEvents(byte[] payload) {
+        try {
+            return EventsCodec.decode(payload);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Events payload written by this job can't be decoded", exception);
+        }
+    }
+
+    private List<String> getConnectedNodeIds() {
+        List<String> nodeIds = new ArrayList<>();
+        try {
+            for (Node node : RxWear.Node.getConnectedNodes().toList().toBlocking().single()) {
+                nodeIds.add(node.getId());
+            }
+        } catch (RuntimeException exception) {
+            logSendError(exception.getCause() != null ? exception.getCause() : exception);
+        }
+        return nodeIds;
     }
 
+    private static String getHash(byte[] payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(payload);
+            return Base64.encodeToString(digest, Base64.NO_WRAP);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(HASH_ALGORITHM + " not available", exception);
+        }
+    }
+
+    /**
+     * @param baseSequence sequence the delta applies to, {@link SyncMessage#NO_SEQUENCE} if payload is a snapshot
+     */
+    private void sendSyncMessage(SyncStateStore syncStateStore, String nodeId, long sequence, long baseSequence,
+                                 byte[] payload, String eventsHash) {
+        boolean snapshot = baseSequence == SyncMessage.NO_SEQUENCE;
+        RxWear.Message.SendDataMap sendDataMap = RxWear.Message.SendDataMap
+                .to(nodeId, CommunicationConfig.EVENTS_LIST_PATH)
+                .putLong(CommunicationConfig.EVENTS_SEQUENCE_KEY, sequence);
+        if (snapshot) {
+            sendDataMap.putByteArray(CommunicationConfig.EVENTS_PAYLOAD_DATA_KEY, payload);
+        } else {
+            sendDataMap.putLong(CommunicationConfig.EVENTS_BASE_SEQUENCE_KEY, baseSequence)
+                    .putByteArray(CommunicationConfig.EVENTS_DELTA_DATA_KEY, payload);
+        }
+        try {
+            sendDataMap.toObservable().toBlocking().single();
+        } catch (RuntimeException exception) {
+            logSendError(exception.getCause() != null ? exception.getCause() : exception);
+            return;
+        }
+        syncStateStore.saveDeliveredHash(nodeId, eventsHash);
+        syncStateStore.countSent(1);
+        Log.d(getParams().getTag(), (snapshot ? "Snapshot" : "Delta") + " " + sequence
+                + " send to node " + nodeId + ", bytes: " + payload.length + ", "
+                + syncStateStore.getCountersSummary());
+    }
 
+    private static void logSendError(Throwable throwable) {
+        if (throwable instanceof GoogleAPIConnectionException) {
+            Log.v(TAG, "Android Wear app is not installed");
+        } else {
+            Log.v(TAG, "Update events error", throwable);
+        }
+    }
 }
@@ -7,7 +7,8 @@ public class SyncJobCreator implements JobCreator {
     @Override
     public Job create(String tag) {
         switch (tag){
-            case SyncJob.TAG:{
+            case SyncJob.TAG:
+            case SyncJob.TAG_AD_HOC: {
                 return new SyncJob();
             }
             default: {
@@ -11,11 +11,34 @@ public class SyncJobScheduler {
     private static final long EXECUTION_WINDOW_START = 1l;
     private static final long EXECUTION_WINDOW_END = 1000l;
 
-    public void scheduleNewSyncJob(long calendarId, long intervalInMinutes) {
-        PersistableBundleCompat extras = new PersistableBundleCompat();
-        extras.putLong(SyncJob.KEY_CALENDAR_ID, calendarId);
+    public void scheduleNewSyncJob(long[] calendarIds, long intervalInMinutes) {
+        runSnapshotSyncJob(getExtras(calendarIds));
+        scheduleSendDataPeriodic(getExtras(calendarIds), intervalInMinutes);
+    }
+
+    /**
+     * Run sync job which sends whole events list to watch.
+     */
+    public void runSnapshotSyncJob(long[] calendarIds) {
+        runSnapshotSyncJob(getExtras(calendarIds));
+    }
+
+    /**
+     * Run sync job which sends only changes since last sync when watch is up to date.
+     */
+    public void runSyncJob(long[] calendarIds) {
+        runSendDataJob(getExtras(calendarIds));
+    }
+
+    private void runSnapshotSyncJob(PersistableBundleCompat extras) {
+        extras.putBoolean(SyncJob.KEY_FULL_SNAPSHOT, true);
         runSendDataJob(extras);
-        scheduleSendDataPeriodic(extras, intervalInMinutes);
+    }
+
+    private PersistableBundleCompat getExtras(long[] calendarIds) {
+        PersistableBundleCompat extras = new PersistableBundleCompat();
+        extras.putLongArray(SyncJob.KEY_CALENDAR_IDS, calendarIds);
+        return extras;
     }
 
     private void runSendDataJob(PersistableBundleCompat extras) {
@@ -0,0 +1,115 @@
+package com.macoscope.gcbwatchface.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Base64;
+import android.util.Log;
+
+import com.eccyan.optional.Optional;
+import com.macoscope.gcbmodel.Event;
+import com.macoscope.gcbmodel.EventsCodec;
+import com.macoscope.gcbmodel.SyncMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Keeps sequence number and events list of the last {@link SyncMessage} sent to watch, so next sync could send only
+ * delta. Also keeps hash of events delivered to each node and counts of sends and skips per node.
+ */
+class SyncStateStore {
+    private static final String TAG = "SyncStateStore";
+    private static final String PREFERENCES_NAME = "sync_state";
+    private static final String KEY_SEQUENCE = "sequence";
+    private static final String KEY_SNAPSHOT = "snapshot";
+    private static final String KEY_DELIVERED_HASH_PREFIX = "deliveredHash_";
+    private static final String KEY_SENT_COUNT = "sentCount";
+    private static final String KEY_SKIPPED_COUNT = "skippedCount";
+    /**
+     * Counters are incremented from job thread and send callbacks.
+     */
+    private static final Object COUNTERS_LOCK = new Object();
+    /**
+     * Ad hoc and periodic sync jobs could run at the same time. Each holds this lock from reading delivered hashes and
+     * sequence until its messages are sent and delivered hashes saved, so two runs can't send different messages with
+     * the same sequence and node can't be marked with events sent by the other run.
+     */
+    static final Object SYNC_LOCK = new Object();
+
+    private SharedPreferences sharedPreferences;
+
+    SyncStateStore(Context context) {
+        sharedPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    long getSequence() {
+        return sharedPreferences.getLong(KEY_SEQUENCE, SyncMessage.NO_SEQUENCE);
+    }
+
+    /**
+     * @return events list of the last snapshot encoded with {@link EventsCodec}
+     */
+    Optional<byte[]> getSnapshotPayload() {
+        String snapshot = sharedPreferences.getString(KEY_SNAPSHOT, null);
+        if (snapshot != null) {
+            try {
+                return Optional.of(Base64.decode(snapshot, Base64.NO_WRAP));
+            } catch (IllegalArgumentException exception) {
+                Log.v(TAG, "Stored snapshot can't be decoded", exception);
+            }
+        }
+        return Optional.empty();
+    }
+
+    static Optional<List<Event>> decodeSnapshot(byte[] snapshotPayload) {
+        try {
+            return Optional.of(EventsCodec.decode(snapshotPayload));
+        } catch (IOException exception) {
+            Log.v(TAG, "Stored snapshot can't be decoded", exception);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param snapshotPayload events list encoded with {@link EventsCodec}
+     */
+    void save(long sequence, byte[] snapshotPayload) {
+        sharedPreferences.edit()
+                .putLong(KEY_SEQUENCE, sequence)
+                .putString(KEY_SNAPSHOT, Base64.encodeToString(snapshotPayload, Base64.NO_WRAP))
+                .commit();
+    }
+
+    /**
+     * @return hash of events list last delivered to given node, null if nothing was delivered
+     */
+    String getDeliveredHash(String nodeId) {
+        return sharedPreferences.getString(KEY_DELIVERED_HASH_PREFIX + nodeId, null);
+    }
+
+    void saveDeliveredHash(String nodeId, String hash) {
+        sharedPreferences.edit().putString(KEY_DELIVERED_HASH_PREFIX + nodeId, hash).apply();
+    }
+
+    void countSent(int nodes) {
+        incrementCounter(KEY_SENT_COUNT, nodes);
+    }
+
+    void countSkipped(int nodes) {
+        incrementCounter(KEY_SKIPPED_COUNT, nodes);
+    }
+
+    private void incrementCounter(String key, int increment) {
+        if (increment == 0) {
+            return;
+        }
+        synchronized (COUNTERS_LOCK) {
+            sharedPreferences.edit().putLong(key, sharedPreferences.getLong(key, 0) + increment).apply();
+        }
+    }
+
+    String getCountersSummary() {
+        return "sent: " + sharedPreferences.getLong(KEY_SENT_COUNT, 0) + ", skipped: "
+                + sharedPreferences.getLong(KEY_SKIPPED_COUNT, 0);
+    }
+}
@@ -34,5 +34,16 @@ public class ColorPalette {
     public int getHourColor(int minutes) {
         return minutes < 30 ? colorGreenBlue : colorLipstick;
     }
+
+    /**
+     * @return grey of the same luminance as given color, used by ambient mode assets
+     */
+    public int getAmbientColor(int color) {
+        int red = (color >> 16) & 0xff;
+        int green = (color >> 8) & 0xff;
+        int blue = color & 0xff;
+        int grey = (red * 299 + green * 587 + blue * 114) / 1000;
+        return (color & 0xff000000) | (grey << 16) | (grey << 8) | grey;
+    }
 }
 
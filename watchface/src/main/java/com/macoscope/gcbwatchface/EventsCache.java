@@ -0,0 +1,106 @@
+package com.macoscope.gcbwatchface;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.eccyan.optional.Optional;
+import com.macoscope.gcbmodel.Event;
+import com.macoscope.gcbmodel.EventTimeline;
+import com.macoscope.gcbmodel.EventsCodec;
+import com.macoscope.gcbmodel.SyncMessage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Last received events kept on the watch, so engine created before the next sync can draw upcoming event right away.
+ * File contains sync sequence followed by {@link EventsCodec} payload.
+ */
+class EventsCache {
+    private static final String TAG = "EventsCache";
+    private static final String FILE_NAME = "events.bin";
+    private static final String TEMP_FILE_NAME = "events.bin.tmp";
+    private static final int SEQUENCE_SIZE = 8;
+
+    private final File file;
+    private final File tempFile;
+
+    EventsCache(Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+        tempFile = new File(context.getFilesDir(), TEMP_FILE_NAME);
+    }
+
+    /**
+     * Read cached events memory mapped, events which already started are dropped.
+     *
+     * @return snapshot with cached sequence, empty if there is no valid cache
+     */
+    Optional<SyncMessage> load(long currentTime) {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        FileInputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            FileChannel channel = inputStream.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long sequence = buffer.getLong();
+            List<Event> events = EventsCodec.decode(buffer);
+            List<Event> upcomingEvents = new ArrayList<>(events.size());
+            for (Event event : events) {
+                if (event.isValidRelativeTo(currentTime)) {
+                    upcomingEvents.add(event);
+                }
+            }
+            return Optional.of(SyncMessage.snapshot(sequence, upcomingEvents));
+        } catch (IOException | RuntimeException exception) {
+            Log.w(TAG, "Dropping invalid events cache", exception);
+            file.delete();
+            return Optional.empty();
+        } finally {
+            close(inputStream);
+        }
+    }
+
+    /**
+     * File is replaced atomically, so the cache is never left half written.
+     */
+    void save(long sequence, EventTimeline timeline) {
+        byte[] payload = EventsCodec.encode(timeline.toEvents());
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            ByteBuffer sequenceBuffer = ByteBuffer.allocate(SEQUENCE_SIZE);
+            sequenceBuffer.putLong(sequence);
+            outputStream.write(sequenceBuffer.array());
+            outputStream.write(payload);
+            outputStream.getFD().sync();
+            outputStream.close();
+            outputStream = null;
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Can't replace " + file);
+            }
+        } catch (IOException ioException) {
+            Log.w(TAG, "Events cache not saved", ioException);
+        } finally {
+            close(outputStream);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -4,120 +4,282 @@ package com.macoscope.gcbwatchface;
 import android.content.Context;
 import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
+import android.util.Log;
 
 import com.eccyan.optional.Optional;
 import com.google.android.gms.wearable.DataMap;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.macoscope.gcbmodel.CommunicationConfig;
 import com.macoscope.gcbmodel.Event;
+import com.macoscope.gcbmodel.EventsCodec;
+import com.macoscope.gcbmodel.EventTimeline;
+import com.macoscope.gcbmodel.EventsDelta;
+import com.macoscope.gcbmodel.SyncMessage;
 import com.patloew.rxwear.RxWear;
 import com.patloew.rxwear.transformers.MessageEventGetDataMap;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import rx.Observable;
 import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.functions.Action1;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subscriptions.CompositeSubscription;
 
+/**
+ * Process wide events store shared by all engines, see {@link #getInstance(Context)}. Listeners are registered,
+ * unregistered and notified on main thread.
+ */
 public class EventsManager {
+    private static final String TAG = "EventsManager";
+    private static EventsManager instance;
+
+    /**
+     * Messages arriving closer to each other than this window (e.g. after reconnect) are processed together.
+     */
+    private static final long COALESCE_WINDOW_MS = 300;
     private CompositeSubscription compositeSubscription;
+    private Subscription messagesSubscription;
+    private final List<EventsListChangeListener> listeners = new ArrayList<>();
     private Gson gson;
+    private EventsCache eventsCache;
+    private SnapshotRequester snapshotRequester = new SnapshotRequester();
     private Type eventListType = new TypeToken<List<Event>>() {}.getType();
-    private List<Event> events;
+    /**
+     * Replaced as a whole on every update, never modified.
+     */
+    private volatile EventTimeline timeline = EventTimeline.empty();
+    private EventTimeline.Cursor upcomingEventCursor = timeline.newCursor();
+    private Event upcomingEvent;
+    /**
+     * Sync state is owned by background thread processing messages, timeline is published to {@link #timeline} on
+     * main thread when ready.
+     */
+    private EventTimeline syncedTimeline = EventTimeline.empty();
+    private long sequence = SyncMessage.NO_SEQUENCE;
+
+    private Func1<Observable<DataMap>, Observable<List<DataMap>>> coalesceFunction =
+            new Func1<Observable<DataMap>, Observable<List<DataMap>>>() {
+                @Override
+                public Observable<List<DataMap>> call(Observable<DataMap> dataMaps) {
+                    return dataMaps.buffer(dataMaps.debounce(COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS,
+                            Schedulers.computation()));
+                }
+            };
 
-    private Func1 dataMapToEventsListFunction = new Func1<DataMap, List<Event>>() {
+    private Func1<List<DataMap>, EventTimeline> dataMapsToTimelineFunction = new Func1<List<DataMap>, EventTimeline>() {
         @Override
-        public List<Event> call(DataMap dataMap) {
-            String json = dataMap.getString(CommunicationConfig.EVENTS_LIST_DATA_KEY);
-            if (TextUtils.isEmpty(json)) {
-                return new ArrayList<>();
-            } else {
-                return gson.fromJson(json, eventListType);
-            }
+        public EventTimeline call(List<DataMap> dataMaps) {
+            return applyDataMaps(dataMaps);
         }
     };
 
-    private static Comparator<Event> eventComparator = new Comparator<Event>() {
+    private Func1<EventTimeline, Boolean> isChangedFunction = new Func1<EventTimeline, Boolean>() {
         @Override
-        public int compare(Event lhs, Event rhs) {
-            if(lhs.getStartDate() < rhs.getStartDate()){
-                return -1;
-            } else if(lhs.getStartDate() > rhs.getStartDate()){
-                return 1;
-            } else {
-                return 0;
-            }
+        public Boolean call(EventTimeline eventTimeline) {
+            return eventTimeline != null;
         }
     };
+
     @VisibleForTesting
     private EventsManager(){}
 
-    public EventsManager(Context context) {
+    public static synchronized EventsManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventsManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private EventsManager(Context context) {
         RxWear.init(context);
         this.gson = new Gson();
+        this.eventsCache = new EventsCache(context);
+        loadCachedEvents();
+        if (sequence == SyncMessage.NO_SEQUENCE) {
+            Log.d(TAG, "No cached events, requesting snapshot");
+            requestSnapshot();
+        }
+    }
+
+    private void loadCachedEvents() {
+        Optional<SyncMessage> cachedEvents = eventsCache.load(System.currentTimeMillis());
+        if (cachedEvents.isPresent()) {
+            applySyncMessage(cachedEvents.get());
+            timeline = syncedTimeline;
+        }
+    }
+
+    /**
+     * Messages are received only while at least one listener is registered.
+     */
+    public void registerMessageListener(EventsListChangeListener listener) {
+        listeners.add(listener);
+        if (messagesSubscription == null || messagesSubscription.isUnsubscribed()) {
+            subscribe();
+        }
     }
 
-    public void registerMessageListener(final EventsListChangeListener listener) {
-        unregisterMessageListener();
+    private void subscribe() {
         compositeSubscription = new CompositeSubscription();
-        Subscription subscription = RxWear.Message.listen()
+        messagesSubscription = RxWear.Message.listen()
                 .compose(MessageEventGetDataMap.filterByPath(CommunicationConfig.EVENTS_LIST_PATH))
-                .map(dataMapToEventsListFunction)
+                .publish(coalesceFunction)
+                .map(dataMapsToTimelineFunction)
+                .filter(isChangedFunction)
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Action1<List<Event>>() {
+                .subscribe(new Action1<EventTimeline>() {
                     @Override
-                    public void call(List<Event> events) {
-                        Collections.sort(events, eventComparator);
-                        setEvents(events);
-                        listener.onEventsListChanged();
+                    public void call(EventTimeline eventTimeline) {
+                        timeline = eventTimeline;
+                        for (EventsListChangeListener listener : new ArrayList<>(listeners)) {
+                            listener.onEventsListChanged();
+                        }
                     }
                 }, new Action1<Throwable>() {
                     @Override
                     public void call(Throwable throwable) {
-                        listener.onEventsLoadFailure();
+                        for (EventsListChangeListener listener : new ArrayList<>(listeners)) {
+                            listener.onEventsLoadFailure();
+                        }
                     }
                 });
-        compositeSubscription.add(subscription);
+        compositeSubscription.add(messagesSubscription);
+    }
+
+    /**
+     * Messages before the latest snapshot in a burst are skipped without decoding. Message which can't be decoded
+     * ends the burst with snapshot request, so messages subscription keeps receiving later updates.
+     *
+     * @return new timeline or null if events list didn't change
+     */
+    private EventTimeline applyDataMaps(List<DataMap> dataMaps) {
+        int latestSnapshotIndex = 0;
+        for (int i = dataMaps.size() - 1; i > 0; i--) {
+            if (!dataMaps.get(i).containsKey(CommunicationConfig.EVENTS_DELTA_DATA_KEY)) {
+                latestSnapshotIndex = i;
+                break;
+            }
+        }
+        long previousSequence = sequence;
+        boolean changed = false;
+        for (int i = latestSnapshotIndex; i < dataMaps.size(); i++) {
+            SyncMessage syncMessage;
+            try {
+                syncMessage = toSyncMessage(dataMaps.get(i));
+            } catch (IOException | JsonParseException exception) {
+                Log.w(TAG, "Events message can't be decoded, requesting snapshot", exception);
+                requestSnapshot();
+                break;
+            }
+            if (!syncMessage.isSnapshot() && !syncMessage.followsSequence(sequence)) {
+                Log.d(TAG, "Missed events update after sequence " + sequence + ", requesting snapshot");
+                requestSnapshot();
+                break;
+            }
+            changed |= applySyncMessage(syncMessage);
+        }
+        if (sequence != previousSequence) {
+            eventsCache.save(sequence, syncedTimeline);
+        }
+        return changed ? syncedTimeline : null;
     }
 
-    private void setEvents(List<Event> events) {
-        this.events = events;
+    private SyncMessage toSyncMessage(DataMap dataMap) throws IOException {
+        long messageSequence = dataMap.getLong(CommunicationConfig.EVENTS_SEQUENCE_KEY, SyncMessage.NO_SEQUENCE);
+        if (dataMap.containsKey(CommunicationConfig.EVENTS_DELTA_DATA_KEY)) {
+            long baseSequence = dataMap.getLong(CommunicationConfig.EVENTS_BASE_SEQUENCE_KEY,
+                    SyncMessage.NO_SEQUENCE);
+            byte[] payload = dataMap.getByteArray(CommunicationConfig.EVENTS_DELTA_DATA_KEY);
+            return SyncMessage.delta(baseSequence, messageSequence, EventsCodec.decodeDelta(payload));
+        } else if (dataMap.containsKey(CommunicationConfig.EVENTS_PAYLOAD_DATA_KEY)) {
+            byte[] payload = dataMap.getByteArray(CommunicationConfig.EVENTS_PAYLOAD_DATA_KEY);
+            return SyncMessage.snapshot(messageSequence, EventsCodec.decode(payload));
+        } else {
+            return SyncMessage.snapshot(SyncMessage.NO_SEQUENCE,
+                    decodeJson(dataMap.getString(CommunicationConfig.EVENTS_LIST_DATA_KEY)));
+        }
+    }
+
+    /**
+     * Fallback for handheld apps which still send events list as JSON.
+     */
+    private List<Event> decodeJson(String json) {
+        if (TextUtils.isEmpty(json)) {
+            return new ArrayList<>();
+        } else {
+            return gson.fromJson(json, eventListType);
+        }
     }
 
-    public void unregisterMessageListener() {
+    /**
+     * Replace events with snapshot or apply delta, which must follow current sequence.
+     *
+     * @return true if events list changed
+     */
+    private boolean applySyncMessage(SyncMessage syncMessage) {
+        sequence = syncMessage.getSequence();
+        if (syncMessage.isSnapshot()) {
+            syncedTimeline = EventTimeline.fromEvents(syncMessage.getEvents());
+            return true;
+        }
+        EventsDelta delta = syncMessage.getDelta();
+        if (delta.isEmpty()) {
+            return false;
+        }
+        syncedTimeline = EventTimeline.fromEvents(delta.applyTo(syncedTimeline.toEvents()));
+        return true;
+    }
+
+    /**
+     * Requested when there are no cached events or delta doesn't follow current sequence, which means some update was
+     * lost. Snapshot from handheld is received only while listener is registered.
+     */
+    private void requestSnapshot() {
+        Subscription subscription = snapshotRequester.request(sequence);
         if (compositeSubscription != null) {
+            compositeSubscription.add(subscription);
+        }
+    }
+
+    @VisibleForTesting
+    void eventsLoaded(List<Event> events) {
+        timeline = EventTimeline.fromEvents(events);
+    }
+
+    public void unregisterMessageListener(EventsListChangeListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && compositeSubscription != null) {
             compositeSubscription.unsubscribe();
         }
     }
 
+    /**
+     * Cursor is shared by all engines, so it must be called on main thread only.
+     */
     public Optional<Event> getUpcomingEvent(long currentTime) {
-        if (events == null || events.size() == 0) {
+        EventTimeline currentTimeline = timeline;
+        if (upcomingEventCursor.getTimeline() != currentTimeline) {
+            upcomingEventCursor = currentTimeline.newCursor();
+            upcomingEvent = null;
+        }
+        int index = upcomingEventCursor.moveTo(currentTime);
+        if (index == EventTimeline.NO_EVENT) {
+            upcomingEvent = null;
             return Optional.empty();
-        } else {
-            Event event = events.get(0);
-            if (event.isValidRelativeTo(currentTime)) {
-                return Optional.of(event);
-            } else {
-                while (hasValidEvent(currentTime)){
-                    events.remove(0);
-                }
-                if(events.size() > 0){
-                    return Optional.of(events.get(0));
-                } else {
-                    return Optional.empty();
-                }
-            }
         }
-    }
-
-    private boolean hasValidEvent(long currentTime){
-        return events.size() > 0 && !events.get(0).isValidRelativeTo(currentTime);
+        if (upcomingEvent == null || upcomingEvent.getId() != currentTimeline.getId(index)
+                || upcomingEvent.getStartDate() != currentTimeline.getStartDate(index)) {
+            upcomingEvent = currentTimeline.getEvent(index);
+        }
+        return Optional.of(upcomingEvent);
     }
 }
@@ -0,0 +1,194 @@
+package com.macoscope.gcbwatchface;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.AsyncTask;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.macoscope.gcbwatchface.drawer.TextLayoutCache;
+import com.macoscope.gcbwatchface.util.DurationHistogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame and per drawer durations, allocations per frame, frames per hour and text layout cache hits. Recording doesn't
+ * allocate, allocations are counted only while {@link #setAllocationCounting(boolean) enabled} because counting slows
+ * down the runtime.
+ * Used on main thread only.
+ */
+class FrameStats {
+    private static final String TAG = "FrameStats";
+    private static final String DUMP_FILE_NAME = "frame_stats.txt";
+    static final int FRAME = 0;
+    static final int HOUR_DRAWER = 1;
+    static final int EVENT_DRAWER = 2;
+    static final int PLACEHOLDER_DRAWER = 3;
+    static final int FACE_DRAWER = 4;
+    static final int INDICATOR_DRAWER = 5;
+    private static final String[] SECTION_NAMES = new String[]{"frame", "hour", "event", "placeholder", "face",
+            "indicator"};
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MINUTES_PER_HOUR = 60;
+
+    private final DurationHistogram[] histograms = new DurationHistogram[SECTION_NAMES.length];
+    /**
+     * Frames drawn in each minute of the last hour, indexed by minute since boot modulo 60.
+     */
+    private final int[] framesPerMinute = new int[MINUTES_PER_HOUR];
+    private long lastFrameMinute;
+    private boolean allocationCounting;
+    private int frameStartAllocations;
+    private long allocatedObjects;
+    private long countedFrames;
+    private TextLayoutCache textLayoutCache;
+
+    FrameStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new DurationHistogram();
+        }
+    }
+
+    /**
+     * @return start time to pass to {@link #stop(int, long)}
+     */
+    long start() {
+        return System.nanoTime();
+    }
+
+    void stop(int section, long startNanos) {
+        histograms[section].record(System.nanoTime() - startNanos);
+    }
+
+    long startFrame() {
+        countFrame(SystemClock.elapsedRealtime() / MINUTE_MS);
+        if (allocationCounting) {
+            frameStartAllocations = Debug.getThreadAllocCount();
+        }
+        return start();
+    }
+
+    void stopFrame(long startNanos) {
+        stop(FRAME, startNanos);
+        if (allocationCounting) {
+            allocatedObjects += Debug.getThreadAllocCount() - frameStartAllocations;
+            countedFrames++;
+        }
+    }
+
+    @VisibleForTesting
+    void countFrame(long minute) {
+        if (minute != lastFrameMinute) {
+            long elapsedMinutes = Math.min(minute - lastFrameMinute, MINUTES_PER_HOUR);
+            for (long i = 1; i <= elapsedMinutes; i++) {
+                framesPerMinute[(int) ((lastFrameMinute + i) % MINUTES_PER_HOUR)] = 0;
+            }
+            lastFrameMinute = minute;
+        }
+        framesPerMinute[(int) (minute % MINUTES_PER_HOUR)]++;
+    }
+
+    int getFramesInLastHour() {
+        int frames = 0;
+        for (int count : framesPerMinute) {
+            frames += count;
+        }
+        return frames;
+    }
+
+    /**
+     * Cache whose hits and misses are reported, counters aren't reset by {@link #reset()}.
+     */
+    void setTextLayoutCache(TextLayoutCache textLayoutCache) {
+        this.textLayoutCache = textLayoutCache;
+    }
+
+    void setAllocationCounting(boolean enabled) {
+        if (enabled == allocationCounting) {
+            return;
+        }
+        allocationCounting = enabled;
+        if (enabled) {
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    void reset() {
+        for (DurationHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        allocatedObjects = 0;
+        countedFrames = 0;
+    }
+
+    /**
+     * Report lines, allocates so it's meant for debug overlay and dumps only.
+     */
+    String[] getReport() {
+        String[] lines = new String[histograms.length + (textLayoutCache != null ? 2 : 1)];
+        for (int i = 0; i < histograms.length; i++) {
+            DurationHistogram histogram = histograms[i];
+            lines[i] = SECTION_NAMES[i] + " n=" + histogram.getCount() + " avg=" + histogram.getAverageMicros()
+                    + " p95<" + histogram.getPercentileMicros(95) + " max=" + histogram.getMaxMicros() + "us";
+        }
+        lines[histograms.length] = "frames/h=" + getFramesInLastHour() + " allocs/frame="
+                + (countedFrames == 0 ? "-" : String.valueOf(allocatedObjects / countedFrames));
+        if (textLayoutCache != null) {
+            lines[histograms.length + 1] = "text cache hits=" + textLayoutCache.getHitCount() + " misses="
+                    + textLayoutCache.getMissCount();
+        }
+        return lines;
+    }
+
+    void drawOverlay(Canvas canvas, Paint paint, float left, float top) {
+        float lineHeight = paint.getFontSpacing();
+        String[] lines = getReport();
+        for (int i = 0; i < lines.length; i++) {
+            canvas.drawText(lines[i], left, top + (i + 1) * lineHeight, paint);
+        }
+    }
+
+    /**
+     * Log report and write it to a file in app files directory. Report is taken on calling thread, logged and written
+     * in background.
+     */
+    void dump(final Context context) {
+        final String[] lines = getReport();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeReport(context, lines);
+            }
+        });
+    }
+
+    private static void writeReport(Context context, String[] lines) {
+        StringBuilder report = new StringBuilder();
+        for (String line : lines) {
+            Log.i(TAG, line);
+            report.append(line).append('\n');
+        }
+        FileWriter writer = null;
+        try {
+            writer = new FileWriter(new File(context.getFilesDir(), DUMP_FILE_NAME));
+            writer.write(report.toString());
+        } catch (IOException ioException) {
+            Log.w(TAG, "Frame stats not written", ioException);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
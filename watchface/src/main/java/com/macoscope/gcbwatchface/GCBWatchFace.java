@@ -4,12 +4,8 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Typeface;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
@@ -19,38 +15,36 @@ import android.view.SurfaceHolder;
 
 import com.eccyan.optional.Optional;
 import com.macoscope.gcbmodel.Event;
-import com.macoscope.gcbwatchface.drawer.EventDrawer;
-import com.macoscope.gcbwatchface.drawer.EventIndicatorDrawer;
 import com.macoscope.gcbwatchface.drawer.FaceDrawer;
-import com.macoscope.gcbwatchface.drawer.HourDrawer;
-import com.macoscope.gcbwatchface.drawer.PlaceholderDrawer;
 import com.macoscope.gcbwatchface.formatter.EventFormatter;
-import com.macoscope.gcbwatchface.util.MeasureUtil;
+import com.macoscope.gcbwatchface.util.WallClock;
 
 import java.lang.ref.WeakReference;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Analog watch face with a ticking second hand. In ambient mode, the second hand isn't shown. On
  * devices with low-bit ambient mode, the hands are drawn without anti-aliasing in ambient mode.
  */
 public class GCBWatchFace extends CanvasWatchFaceService {
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long RING_STATE_MS = TimeUnit.MINUTES.toMillis(FaceDrawer.MINUTES_PER_RING_STATE);
+
     /**
-     * Update rate in milliseconds for interactive mode. We update once a minute
+     * Handler message id for the next moment in interactive mode at which something visible on the face changes.
      */
-    private static final long INTERACTIVE_UPDATE_RATE_MS = 1000;
-
+    private static final int MSG_DEADLINE = 1;
     /**
-     * Handler message id for updating the time periodically in interactive mode.
+     * Handler message id for the end of a tap sequence, sent when no tap followed within {@link #TAP_SEQUENCE_GAP_MS}.
      */
-    private static final int MSG_UPDATE_TIME = 1;
+    private static final int MSG_TAP_SEQUENCE_END = 2;
 
     /**
-     * Handler message id for updating the event.
+     * Frame stats overlay is toggled with this many taps following each other within the gap.
      */
-    private static final int MSG_UPDATE_EVENT = 2;
+    private static final int STATS_OVERLAY_TAPS = 5;
+    private static final long TAP_SEQUENCE_GAP_MS = 400;
 
     @Override
     public GCBWatchFaceEngine onCreateEngine() {
@@ -58,8 +52,6 @@ public class GCBWatchFace extends CanvasWatchFaceService {
     }
 
     private class GCBWatchFaceEngine extends CanvasWatchFaceService.Engine {
-        private static final String MINUTES_FONT_FAMILY = "sans-serif-light";
-
         private class EngineHandler extends Handler {
 
             private final WeakReference<GCBWatchFaceEngine> weakEngineReference;
@@ -73,12 +65,12 @@ public class GCBWatchFace extends CanvasWatchFaceService {
                 GCBWatchFaceEngine engine = weakEngineReference.get();
                 if (engine != null) {
                     switch (msg.what) {
-                        case MSG_UPDATE_TIME: {
-                            engine.handleUpdateTimeMessage();
+                        case MSG_DEADLINE: {
+                            engine.handleDeadlineMessage();
                             break;
                         }
-                        case MSG_UPDATE_EVENT: {
-                            engine.handleUpdateEventMessage();
+                        case MSG_TAP_SEQUENCE_END: {
+                            engine.handleTapSequenceEnd();
                             break;
                         }
                     }
@@ -97,32 +89,25 @@ public class GCBWatchFace extends CanvasWatchFaceService {
         private boolean lowBitAmbient;
         private boolean drawInEventMode = false;
 
-        private ColorPalette colorPalette;
-
-        private Calendar time;
-        private Bitmap faceBitmap;
-        private Paint bitmapPaint;
-
-        private RectF outerOval;
-        private RectF innerOval;
+        private WallClock wallClock;
+        private WatchFaceRenderer renderer;
 
-        private float strokeSize;
-        private float innerStrokeSize;
-        private float padding;
-        private float innerOvalRadius;
-        private float bitmapOffset;
-
-        private Typeface typefaceLight;
-
-        private HourDrawer hourDrawer;
-        private EventDrawer eventDrawer;
-        private FaceDrawer faceDrawer;
-        private EventIndicatorDrawer indicatorDrawer;
-        private PlaceholderDrawer placeholderDrawer;
+        private FrameStats frameStats;
+        private boolean statsOverlayVisible;
+        private int tapsInSequence;
 
         private EventFormatter eventFormatter;
         private EventsManager eventsManager;
 
+        /**
+         * State of the last drawn frame, doesn't match any state until the first frame is drawn.
+         */
+        private final RenderState drawnRenderState = new RenderState();
+        /**
+         * Reused to compare state at time ticks with the drawn one.
+         */
+        private final RenderState tickRenderState = new RenderState();
+
         private String noUpcomingEvents;
         private String eventsLoadingError;
 
@@ -130,19 +115,16 @@ public class GCBWatchFace extends CanvasWatchFaceService {
             @Override
             public void onReceive(Context context, Intent intent) {
                 TimeZone timeZone = TimeZone.getTimeZone(intent.getStringExtra("time-zone"));
-                time.setTimeZone(timeZone);
-                time.setTimeInMillis(System.currentTimeMillis());
-                if (hourDrawer != null) {
-                    hourDrawer.setTimeZone(timeZone);
-                }
-                eventFormatter.setTimeZone(timeZone);
+                wallClock.setTimeZone(timeZone);
+                wallClock.setTimeInMillis(System.currentTimeMillis());
+                updateTimer();
             }
         };
 
         private EventsListChangeListener eventsListListener = new EventsListChangeListener() {
             @Override
             public void onEventsListChanged() {
-                handleUpdateEventMessage();
+                handleEventsListChanged();
             }
 
             @Override
@@ -155,58 +137,35 @@ public class GCBWatchFace extends CanvasWatchFaceService {
         public void onCreate(SurfaceHolder holder) {
             super.onCreate(holder);
             setUpWatchFaceStyle();
-            initCalendar();
+            initWallClock();
             initEventFormatter();
+            initResources();
             Context context = GCBWatchFace.this.getApplicationContext();
-            initResources(context);
-            initPaints();
-            initRectangles();
-            initDrawers(context);
+            initRenderer(context);
             initAndRegisterEventsManager(context);
         }
 
+        private void initRenderer(Context context) {
+            frameStats = new FrameStats();
+            renderer = new WatchFaceRenderer(context, wallClock, eventFormatter, frameStats);
+        }
+
         private void initAndRegisterEventsManager(Context context) {
-            eventsManager = new EventsManager(context);
+            eventsManager = EventsManager.getInstance(context);
             eventsManager.registerMessageListener(eventsListListener);
+            // Events cached from the previous sync can be drawn before the next one arrives.
+            updateUpcomingEvent(System.currentTimeMillis());
         }
 
         private void initEventFormatter() {
-            eventFormatter = new EventFormatter();
+            eventFormatter = new EventFormatter(wallClock);
         }
 
-        private void initResources(Context context) {
-            colorPalette = new ColorPalette(context);
-
-            strokeSize = MeasureUtil.getDimensionToPixel(getResources(), R.dimen.outside_oval_stroke);
-            innerStrokeSize = MeasureUtil.getDimensionToPixel(getResources(), R.dimen.inner_oval_stroke);
-            padding = MeasureUtil.getDimensionToPixel(getResources(), R.dimen.face_padding);
-            bitmapOffset = padding - strokeSize;
-            typefaceLight = Typeface.create(MINUTES_FONT_FAMILY, Typeface.NORMAL);
-            if (typefaceLight == null) {
-                typefaceLight = Typeface.DEFAULT;
-            }
-
+        private void initResources() {
             noUpcomingEvents = getString(R.string.placeholder_no_events);
             eventsLoadingError = getString(R.string.placeholder_events_error);
         }
 
-        private void initDrawers(Context context) {
-            hourDrawer = new HourDrawer(colorPalette, typefaceLight, MeasureUtil.getDimensionToPixel(getResources(),
-                    R.dimen.hour_text_size));
-            eventDrawer = new EventDrawer(context, typefaceLight, colorPalette, bitmapPaint);
-            faceDrawer = new FaceDrawer(colorPalette, padding, strokeSize);
-            indicatorDrawer = new EventIndicatorDrawer(colorPalette, innerStrokeSize);
-            placeholderDrawer = new PlaceholderDrawer(colorPalette, MeasureUtil.getDimensionToPixel(getResources(),
-                    R.dimen.permissions_not_granted), noUpcomingEvents, MeasureUtil.getDimensionToPixel
-                    (getResources(), R.dimen.inner_oval_stroke), strokeSize, MeasureUtil.getDimensionToPixel
-                    (getResources(), R.dimen.ovals_gap));
-        }
-
-        private void initRectangles() {
-            outerOval = new RectF();
-            innerOval = new RectF();
-        }
-
         private void setUpWatchFaceStyle() {
             setWatchFaceStyle(new WatchFaceStyle.Builder(GCBWatchFace.this)
                     .setCardPeekMode(WatchFaceStyle.PEEK_MODE_SHORT)
@@ -216,23 +175,15 @@ public class GCBWatchFace extends CanvasWatchFaceService {
                     .build());
         }
 
-        private void initCalendar() {
-            time = new GregorianCalendar();
-        }
-
-        private void initPaints() {
-            initBitmapPaint();
-        }
-
-        private void initBitmapPaint() {
-            bitmapPaint = new Paint();
-            bitmapPaint.setFilterBitmap(true);
+        private void initWallClock() {
+            wallClock = new WallClock(TimeZone.getDefault());
         }
 
         @Override
         public void onDestroy() {
-            eventsManager.unregisterMessageListener();
-            engineHandler.removeMessages(MSG_UPDATE_TIME);
+            eventsManager.unregisterMessageListener(eventsListListener);
+            engineHandler.removeMessages(MSG_DEADLINE);
+            engineHandler.removeMessages(MSG_TAP_SEQUENCE_END);
             super.onDestroy();
         }
 
@@ -245,7 +196,9 @@ public class GCBWatchFace extends CanvasWatchFaceService {
         @Override
         public void onTimeTick() {
             super.onTimeTick();
-            invalidate();
+            long currentTime = System.currentTimeMillis();
+            updateUpcomingEvent(currentTime);
+            invalidateIfRenderStateChanged(currentTime);
         }
 
         @Override
@@ -253,14 +206,7 @@ public class GCBWatchFace extends CanvasWatchFaceService {
             super.onAmbientModeChanged(inAmbientMode);
             if (ambientMode != inAmbientMode) {
                 ambientMode = inAmbientMode;
-                if (lowBitAmbient) {
-                    faceDrawer.setAmbientMode(inAmbientMode);
-                    hourDrawer.setAmbientMode(inAmbientMode);
-                    eventDrawer.setAmbientMode(inAmbientMode);
-                    indicatorDrawer.setAmbientMode(inAmbientMode);
-                    placeholderDrawer.setAmbientMode(inAmbientMode);
-                    bitmapPaint.setFilterBitmap(!inAmbientMode);
-                }
+                renderer.setAmbientMode(inAmbientMode, lowBitAmbient);
                 invalidate();
             }
 
@@ -270,8 +216,8 @@ public class GCBWatchFace extends CanvasWatchFaceService {
         }
 
         /**
-         * Captures tap event (and tap type) and toggles the background color if the user finishes
-         * a tap.
+         * Captures tap event (and tap type) and counts completed taps. Event mode is toggled once a tap sequence ends,
+         * so taps of the hidden stats overlay sequence don't toggle it.
          */
         @Override
         public void onTapCommand(int tapType, int x, int y, long eventTime) {
@@ -284,68 +230,62 @@ public class GCBWatchFace extends CanvasWatchFaceService {
                     break;
                 case TAP_TYPE_TAP:
                     // The user has completed the tap gesture.
-                    drawInEventMode = !drawInEventMode;
+                    countTap();
                     break;
             }
-            invalidate();
         }
 
-        @Override
-        public void onDraw(Canvas canvas, Rect bounds) {
-            long currentTime = System.currentTimeMillis();
-            time.setTimeInMillis(currentTime);
-            canvas.drawColor(colorPalette.backgroundColor);
-
-            float centerX = bounds.centerX();
-            float centerY = bounds.centerY();
-            int minutes = time.get(Calendar.MINUTE);
-            boolean eventToDisplay = eventFormatter.hasEvent();
-
-            if (drawInEventMode) {
-                if (eventToDisplay) {
-                    eventDrawer.draw(eventFormatter, canvas, centerX, centerY, time.getTimeInMillis());
-                } else {
-                    placeholderDrawer.draw(canvas, bounds.width(), centerX, centerY);
-                }
+        /**
+         * Hidden sequence of {@link #STATS_OVERLAY_TAPS} taps toggles frame stats overlay right away, shorter
+         * sequences toggle event mode when they end.
+         */
+        private void countTap() {
+            engineHandler.removeMessages(MSG_TAP_SEQUENCE_END);
+            tapsInSequence++;
+            if (tapsInSequence == STATS_OVERLAY_TAPS) {
+                tapsInSequence = 0;
+                toggleStatsOverlay();
             } else {
-                hourDrawer.draw(canvas, time, centerX, centerY);
+                engineHandler.sendEmptyMessageDelayed(MSG_TAP_SEQUENCE_END, TAP_SEQUENCE_GAP_MS);
             }
+        }
 
-            faceDrawer.draw(minutes);
+        private void handleTapSequenceEnd() {
+            tapsInSequence = 0;
+            drawInEventMode = !drawInEventMode;
+            // Minutes to event are displayed only in event mode, so deadlines change.
+            if (shouldTimerBeRunning()) {
+                scheduleNextDeadline(System.currentTimeMillis());
+            }
+            invalidate();
+        }
 
-            if (eventToDisplay) {
-                indicatorDrawer.draw(eventFormatter.getHourMinutes());
+        /**
+         * Stats are dumped when overlay is hidden.
+         */
+        private void toggleStatsOverlay() {
+            statsOverlayVisible = !statsOverlayVisible;
+            frameStats.setAllocationCounting(statsOverlayVisible);
+            renderer.setStatsOverlayVisible(statsOverlayVisible);
+            if (statsOverlayVisible) {
+                frameStats.reset();
             } else {
-                indicatorDrawer.clearIndication();
+                frameStats.dump(getApplicationContext());
             }
-            canvas.drawBitmap(faceBitmap, bitmapOffset, bitmapOffset, bitmapPaint);
+            invalidate();
+        }
+
+        @Override
+        public void onDraw(Canvas canvas, Rect bounds) {
+            long currentTime = System.currentTimeMillis();
+            updateRenderState(drawnRenderState, currentTime);
+            renderer.draw(canvas, bounds, currentTime, drawInEventMode);
         }
 
         @Override
         public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
             super.onSurfaceChanged(holder, format, width, height);
-            initWatchFaceBitmap(width, height, strokeSize);
-            faceDrawer.measure(faceBitmap, outerOval, width, height);
-            setInnerOval(outerOval);
-            innerOvalRadius = innerOval.width() / 2;
-            indicatorDrawer.measure(faceBitmap, innerOval);
-            eventDrawer.measure(innerOvalRadius);
-        }
-
-        private void setInnerOval(RectF outerOval){
-            int ovalsGap = MeasureUtil.getDimensionToPixel(getResources(), R.dimen.ovals_gap);
-            float ovalsPadding = innerStrokeSize / 2 + ovalsGap + strokeSize / 2;
-            innerOval.set(outerOval.left + ovalsPadding, outerOval.top + ovalsPadding, outerOval.right - ovalsPadding,
-                    outerOval.bottom - ovalsPadding);
-        }
-
-        private void initWatchFaceBitmap(int boundsWidth, int boundHeight, float stroke) {
-            int width = (int) (boundsWidth - padding * 2 + stroke * 2);
-            int height = (int) (boundHeight - padding * 2 + stroke * 2);
-            if (faceBitmap != null) {
-                faceBitmap.recycle();
-            }
-            faceBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            renderer.measure(width, height);
         }
 
         @Override
@@ -367,9 +307,8 @@ public class GCBWatchFace extends CanvasWatchFaceService {
 
         private void updateTimeZone() {
             TimeZone defaultZone = TimeZone.getDefault();
-            time.setTimeZone(defaultZone);
-            time.setTimeInMillis(System.currentTimeMillis());
-            hourDrawer.setTimeZone(defaultZone);
+            wallClock.setTimeZone(defaultZone);
+            wallClock.setTimeInMillis(System.currentTimeMillis());
         }
 
         private void registerTimeZoneChangeReceiver() {
@@ -392,15 +331,15 @@ public class GCBWatchFace extends CanvasWatchFaceService {
          * or stops it if it shouldn't be running but currently is.
          */
         private void updateTimer() {
-            engineHandler.removeMessages(MSG_UPDATE_TIME);
+            engineHandler.removeMessages(MSG_DEADLINE);
             if (shouldTimerBeRunning()) {
-                engineHandler.sendEmptyMessage(MSG_UPDATE_TIME);
+                engineHandler.sendEmptyMessage(MSG_DEADLINE);
             }
         }
 
         /**
          * Returns whether the {@link #engineHandler} timer should be running. The timer should
-         * only run when we're visible and in interactive mode.
+         * only run when we're visible and in interactive mode, in ambient mode {@link #onTimeTick()} is used instead.
          */
         private boolean shouldTimerBeRunning() {
             return isVisible() && !isInAmbientMode();
@@ -408,39 +347,91 @@ public class GCBWatchFace extends CanvasWatchFaceService {
 
 
         /**
-         * Handle updating the time periodically in interactive mode.
+         * Handle reaching a deadline in interactive mode and wait for the next one.
          */
-        private void handleUpdateTimeMessage() {
-            invalidate();
+        private void handleDeadlineMessage() {
+            long currentTime = System.currentTimeMillis();
+            updateUpcomingEvent(currentTime);
+            invalidateIfRenderStateChanged(currentTime);
             if (shouldTimerBeRunning()) {
-                long timeMs = System.currentTimeMillis();
-                long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                        - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                engineHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
+                scheduleNextDeadline(currentTime);
+            }
+        }
+
+        private void scheduleNextDeadline(long currentTime) {
+            engineHandler.removeMessages(MSG_DEADLINE);
+            engineHandler.sendEmptyMessageDelayed(MSG_DEADLINE, getNextDeadline(currentTime) - currentTime);
+        }
+
+        /**
+         * Face changes when ring state changes (also covers displayed hour), when upcoming event starts, when zone
+         * offset changes and, in event mode, when minutes to event change.
+         *
+         * @return the earliest time after given time at which something visible on the face changes
+         */
+        private long getNextDeadline(long currentTime) {
+            wallClock.setTimeInMillis(currentTime);
+            long elapsedInRingState = wallClock.getMillisOfDay() % RING_STATE_MS;
+            long deadline = Math.min(currentTime - elapsedInRingState + RING_STATE_MS,
+                    wallClock.getNextOffsetChange());
+            if (eventFormatter.hasEvent()) {
+                long startDate = eventFormatter.getStartDate();
+                deadline = Math.min(deadline, startDate);
+                if (drawInEventMode) {
+                    // Minutes to event are rounded down, so they change just after full minutes to start date.
+                    deadline = Math.min(deadline, currentTime + (startDate - currentTime) % MINUTE_MS + 1);
+                }
+            }
+            return deadline;
+        }
+
+        /**
+         * Time ticks much more often than anything on the face changes, redraw only when it would look different.
+         */
+        private void invalidateIfRenderStateChanged(long currentTime) {
+            updateRenderState(tickRenderState, currentTime);
+            if (!tickRenderState.equals(drawnRenderState)) {
+                invalidate();
             }
         }
 
-        private void handleUpdateEventMessage() {
-            Optional<Event> upcomingEvent = eventsManager.getUpcomingEvent(System.currentTimeMillis());
+        private void updateRenderState(RenderState renderState, long currentTime) {
+            wallClock.setTimeInMillis(currentTime);
+            int hourOfDay = wallClock.getHourOfDay();
+            int ringStep = wallClock.getMinute() / FaceDrawer.MINUTES_PER_RING_STATE;
+            if (!eventFormatter.hasEvent()) {
+                renderState.set(ambientMode, drawInEventMode, hourOfDay, ringStep, RenderState.NO_EVENT_ID, 0, 0);
+                return;
+            }
+            long minutesToEvent = drawInEventMode ? eventFormatter.getMinutesToEvent(currentTime) : 0;
+            renderState.set(ambientMode, drawInEventMode, hourOfDay, ringStep, eventFormatter.getEventId(),
+                    eventFormatter.getStartDate(), minutesToEvent);
+        }
+
+        /**
+         * Roll over to the next event when upcoming one has started.
+         */
+        private void updateUpcomingEvent(long currentTime) {
+            Optional<Event> upcomingEvent = eventsManager.getUpcomingEvent(currentTime);
             if (upcomingEvent.isPresent()) {
-                Event event = upcomingEvent.get();
-                eventFormatter.setEvent(event);
-                sendDelayedUpdateEventHandlerMessage(event.getStartDate());
+                eventFormatter.setEvent(upcomingEvent.get());
             } else {
-                placeholderDrawer.setMessage(noUpcomingEvents);
                 eventFormatter.clearEvent();
             }
-            invalidate();
         }
 
-        private void sendDelayedUpdateEventHandlerMessage(long currentEventStartTime){
-            long delayMs = currentEventStartTime - (System.currentTimeMillis() % currentEventStartTime);
-            engineHandler.removeMessages(MSG_UPDATE_EVENT);
-            engineHandler.sendEmptyMessageDelayed(MSG_UPDATE_EVENT, delayMs);
+        private void handleEventsListChanged() {
+            long currentTime = System.currentTimeMillis();
+            renderer.setPlaceholderMessage(noUpcomingEvents);
+            updateUpcomingEvent(currentTime);
+            invalidate();
+            if (shouldTimerBeRunning()) {
+                scheduleNextDeadline(currentTime);
+            }
         }
 
         private void handleEventLoadingError() {
-            placeholderDrawer.setMessage(eventsLoadingError);
+            renderer.setPlaceholderMessage(eventsLoadingError);
             eventFormatter.clearEvent();
             invalidate();
         }
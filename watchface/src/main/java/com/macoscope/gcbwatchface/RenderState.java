@@ -0,0 +1,80 @@
+package com.macoscope.gcbwatchface;
+
+/**
+ * Everything drawn on the watch face which depends on time. Frames with equal render states look the same, so there
+ * is no need to redraw the face until render state changes. Mutable, so it can be updated on every time tick without
+ * allocation.
+ */
+public class RenderState {
+    public static final long NO_EVENT_ID = -1;
+
+    private boolean ambientMode;
+    private boolean eventMode;
+    /**
+     * Together with ring step defines displayed hour and its color.
+     */
+    private int hourOfDay;
+    /**
+     * Outer ring changes every 5 minutes.
+     */
+    private int ringStep;
+    private long eventId;
+    private long eventStartDate;
+    /**
+     * Minutes to event are displayed only in event mode, otherwise should be 0.
+     */
+    private long minutesToEvent;
+
+    /**
+     * Creates state which isn't equal to any state of a drawn frame.
+     */
+    public RenderState() {
+        hourOfDay = -1;
+    }
+
+    public RenderState(boolean ambientMode, boolean eventMode, int hourOfDay, int ringStep, long eventId,
+                       long eventStartDate, long minutesToEvent) {
+        set(ambientMode, eventMode, hourOfDay, ringStep, eventId, eventStartDate, minutesToEvent);
+    }
+
+    public void set(boolean ambientMode, boolean eventMode, int hourOfDay, int ringStep, long eventId,
+                    long eventStartDate, long minutesToEvent) {
+        this.ambientMode = ambientMode;
+        this.eventMode = eventMode;
+        this.hourOfDay = hourOfDay;
+        this.ringStep = ringStep;
+        this.eventId = eventId;
+        this.eventStartDate = eventStartDate;
+        this.minutesToEvent = minutesToEvent;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RenderState that = (RenderState) o;
+        return ambientMode == that.ambientMode
+                && eventMode == that.eventMode
+                && hourOfDay == that.hourOfDay
+                && ringStep == that.ringStep
+                && eventId == that.eventId
+                && eventStartDate == that.eventStartDate
+                && minutesToEvent == that.minutesToEvent;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (ambientMode ? 1 : 0);
+        result = 31 * result + (eventMode ? 1 : 0);
+        result = 31 * result + hourOfDay;
+        result = 31 * result + ringStep;
+        result = 31 * result + (int) (eventId ^ (eventId >>> 32));
+        result = 31 * result + (int) (eventStartDate ^ (eventStartDate >>> 32));
+        result = 31 * result + (int) (minutesToEvent ^ (minutesToEvent >>> 32));
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.macoscope.gcbwatchface;
+
+import android.util.Log;
+
+import com.macoscope.gcbmodel.CommunicationConfig;
+import com.macoscope.gcbmodel.SyncMessage;
+import com.patloew.rxwear.RxWear;
+
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Actions;
+
+/**
+ * Asks all connected handhelds for whole events list, RxWear must be initialized.
+ */
+class SnapshotRequester {
+    private static final String TAG = "SnapshotRequester";
+
+    /**
+     * @param sequence sequence of events the watch has, {@link SyncMessage#NO_SEQUENCE} if none
+     */
+    public Subscription request(long sequence) {
+        return RxWear.Message.SendDataMap
+                .toAllRemoteNodes(CommunicationConfig.EVENTS_SNAPSHOT_REQUEST_PATH)
+                .putLong(CommunicationConfig.EVENTS_SEQUENCE_KEY, sequence)
+                .toObservable()
+                .subscribe(Actions.empty(), new Action1<Throwable>() {
+                    @Override
+                    public void call(Throwable throwable) {
+                        Log.v(TAG, "Snapshot request error", throwable);
+                    }
+                });
+    }
+}
@@ -0,0 +1,198 @@
+package com.macoscope.gcbwatchface;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import com.macoscope.gcbwatchface.drawer.EventDrawer;
+import com.macoscope.gcbwatchface.drawer.EventIndicatorDrawer;
+import com.macoscope.gcbwatchface.drawer.FaceDrawer;
+import com.macoscope.gcbwatchface.drawer.HourDrawer;
+import com.macoscope.gcbwatchface.drawer.PlaceholderDrawer;
+import com.macoscope.gcbwatchface.drawer.TextLayoutCache;
+import com.macoscope.gcbwatchface.formatter.EventFormatter;
+import com.macoscope.gcbwatchface.util.MeasureUtil;
+import com.macoscope.gcbwatchface.util.WallClock;
+
+/**
+ * Draws the face for given time, independent of watch face engine lifecycle, so frames can also be rendered
+ * outside of a watch face service, e.g. in benchmarks.
+ */
+class WatchFaceRenderer {
+    private static final String MINUTES_FONT_FAMILY = "sans-serif-light";
+    private static final float STATS_OVERLAY_TEXT_SIZE = 14;
+
+    private final Resources resources;
+    private final WallClock wallClock;
+    private final EventFormatter eventFormatter;
+    private final FrameStats frameStats;
+
+    private ColorPalette colorPalette;
+    private Bitmap faceBitmap;
+    private Paint bitmapPaint;
+    private Paint statsOverlayPaint;
+    private boolean statsOverlayVisible;
+
+    private RectF outerOval;
+    private RectF innerOval;
+
+    private float strokeSize;
+    private float innerStrokeSize;
+    private float padding;
+    private float bitmapOffset;
+
+    private Typeface typefaceLight;
+
+    private HourDrawer hourDrawer;
+    private EventDrawer eventDrawer;
+    private FaceDrawer faceDrawer;
+    private EventIndicatorDrawer indicatorDrawer;
+    private PlaceholderDrawer placeholderDrawer;
+    private TextLayoutCache textLayoutCache;
+
+    WatchFaceRenderer(Context context, WallClock wallClock, EventFormatter eventFormatter, FrameStats frameStats) {
+        this.resources = context.getResources();
+        this.wallClock = wallClock;
+        this.eventFormatter = eventFormatter;
+        this.frameStats = frameStats;
+        initResources(context);
+        initPaints();
+        initRectangles();
+        initDrawers(context);
+    }
+
+    private void initResources(Context context) {
+        colorPalette = new ColorPalette(context);
+
+        strokeSize = MeasureUtil.getDimensionToPixel(resources, R.dimen.outside_oval_stroke);
+        innerStrokeSize = MeasureUtil.getDimensionToPixel(resources, R.dimen.inner_oval_stroke);
+        padding = MeasureUtil.getDimensionToPixel(resources, R.dimen.face_padding);
+        bitmapOffset = padding - strokeSize;
+        typefaceLight = Typeface.create(MINUTES_FONT_FAMILY, Typeface.NORMAL);
+        if (typefaceLight == null) {
+            typefaceLight = Typeface.DEFAULT;
+        }
+    }
+
+    private void initPaints() {
+        bitmapPaint = new Paint();
+        bitmapPaint.setFilterBitmap(true);
+        statsOverlayPaint = new Paint();
+        statsOverlayPaint.setAntiAlias(true);
+        statsOverlayPaint.setColor(Color.YELLOW);
+        statsOverlayPaint.setTextSize(STATS_OVERLAY_TEXT_SIZE);
+    }
+
+    private void initRectangles() {
+        outerOval = new RectF();
+        innerOval = new RectF();
+    }
+
+    private void initDrawers(Context context) {
+        textLayoutCache = new TextLayoutCache();
+        frameStats.setTextLayoutCache(textLayoutCache);
+        hourDrawer = new HourDrawer(colorPalette, textLayoutCache, typefaceLight,
+                MeasureUtil.getDimensionToPixel(resources, R.dimen.hour_text_size));
+        eventDrawer = new EventDrawer(context, textLayoutCache, typefaceLight, colorPalette, bitmapPaint);
+        faceDrawer = new FaceDrawer(colorPalette, padding, strokeSize);
+        indicatorDrawer = new EventIndicatorDrawer(colorPalette, innerStrokeSize);
+        placeholderDrawer = new PlaceholderDrawer(colorPalette, textLayoutCache, MeasureUtil
+                .getDimensionToPixel(resources, R.dimen.permissions_not_granted),
+                resources.getString(R.string.placeholder_no_events),
+                MeasureUtil.getDimensionToPixel(resources, R.dimen.inner_oval_stroke), strokeSize,
+                MeasureUtil.getDimensionToPixel(resources, R.dimen.ovals_gap));
+    }
+
+    void setPlaceholderMessage(String message) {
+        placeholderDrawer.setMessage(message);
+    }
+
+    void setStatsOverlayVisible(boolean visible) {
+        statsOverlayVisible = visible;
+    }
+
+    void setAmbientMode(boolean inAmbientMode, boolean lowBitAmbient) {
+        faceDrawer.setAmbientMode(inAmbientMode, lowBitAmbient);
+        hourDrawer.setAmbientMode(inAmbientMode, lowBitAmbient);
+        eventDrawer.setAmbientMode(inAmbientMode, lowBitAmbient);
+        indicatorDrawer.setAmbientMode(inAmbientMode, lowBitAmbient);
+        placeholderDrawer.setAmbientMode(inAmbientMode, lowBitAmbient);
+        bitmapPaint.setFilterBitmap(!(inAmbientMode && lowBitAmbient));
+    }
+
+    void measure(int width, int height) {
+        initWatchFaceBitmap(width, height, strokeSize);
+        faceDrawer.measure(faceBitmap, outerOval, width, height);
+        setInnerOval(outerOval);
+        indicatorDrawer.measure(faceBitmap, innerOval);
+        eventDrawer.measure(innerOval.width() / 2);
+    }
+
+    private void setInnerOval(RectF outerOval){
+        int ovalsGap = MeasureUtil.getDimensionToPixel(resources, R.dimen.ovals_gap);
+        float ovalsPadding = innerStrokeSize / 2 + ovalsGap + strokeSize / 2;
+        innerOval.set(outerOval.left + ovalsPadding, outerOval.top + ovalsPadding, outerOval.right - ovalsPadding,
+                outerOval.bottom - ovalsPadding);
+    }
+
+    private void initWatchFaceBitmap(int boundsWidth, int boundHeight, float stroke) {
+        int width = (int) (boundsWidth - padding * 2 + stroke * 2);
+        int height = (int) (boundHeight - padding * 2 + stroke * 2);
+        if (faceBitmap != null) {
+            faceBitmap.recycle();
+        }
+        faceBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * @param eventMode whether upcoming event (or placeholder) is drawn instead of hour
+     */
+    void draw(Canvas canvas, Rect bounds, long currentTime, boolean eventMode) {
+        long frameStart = frameStats.startFrame();
+        wallClock.setTimeInMillis(currentTime);
+        canvas.drawColor(colorPalette.backgroundColor);
+
+        float centerX = bounds.centerX();
+        float centerY = bounds.centerY();
+        int minutes = wallClock.getMinute();
+        boolean eventToDisplay = eventFormatter.hasEvent();
+
+        long sectionStart = frameStats.start();
+        if (eventMode) {
+            if (eventToDisplay) {
+                eventDrawer.draw(eventFormatter, canvas, centerX, centerY, currentTime);
+                frameStats.stop(FrameStats.EVENT_DRAWER, sectionStart);
+            } else {
+                placeholderDrawer.draw(canvas, bounds.width(), centerX, centerY);
+                frameStats.stop(FrameStats.PLACEHOLDER_DRAWER, sectionStart);
+            }
+        } else {
+            hourDrawer.draw(canvas, wallClock.getHourOfDay(), minutes, centerX, centerY);
+            frameStats.stop(FrameStats.HOUR_DRAWER, sectionStart);
+        }
+
+        sectionStart = frameStats.start();
+        faceDrawer.draw(minutes);
+        frameStats.stop(FrameStats.FACE_DRAWER, sectionStart);
+
+        sectionStart = frameStats.start();
+        if (eventToDisplay) {
+            indicatorDrawer.draw(eventFormatter.getHourMinutes());
+        } else {
+            indicatorDrawer.clearIndication();
+        }
+        frameStats.stop(FrameStats.INDICATOR_DRAWER, sectionStart);
+        canvas.drawBitmap(faceBitmap, bitmapOffset, bitmapOffset, bitmapPaint);
+        frameStats.stopFrame(frameStart);
+
+        if (statsOverlayVisible) {
+            frameStats.drawOverlay(canvas, statsOverlayPaint, bounds.width() / 6, bounds.height() / 4);
+        }
+    }
+}
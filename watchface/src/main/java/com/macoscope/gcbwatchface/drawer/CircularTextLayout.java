@@ -0,0 +1,209 @@
+package com.macoscope.gcbwatchface.drawer;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * Text lines stacked in a block inside a circle, every line is as wide as the circle chord at its vertical offset.
+ * Lines break at spaces when possible, the last line is ellipsized when text doesn't fit. Line breaks are computed
+ * only when text or measurements change.
+ */
+class CircularTextLayout {
+    private static final String ELLIPSIS = "…";
+
+    private final TextPaint textPaint;
+    private final int maxLines;
+    private final boolean bottomAligned;
+    private final float lineHeight;
+    private final float baselineOffset;
+    private final float ellipsisWidth;
+
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final float[] lineWidths;
+    private int linesCount;
+    private boolean ellipsized;
+
+    private float radius;
+    private float anchor;
+    private CharSequence text;
+    private boolean laidOut;
+
+    /**
+     * @param bottomAligned true if block grows up from its anchor, false if it grows down
+     */
+    CircularTextLayout(TextPaint textPaint, int maxLines, boolean bottomAligned) {
+        this.textPaint = textPaint;
+        this.maxLines = maxLines;
+        this.bottomAligned = bottomAligned;
+        this.textPaint.setTextAlign(Paint.Align.LEFT);
+        Paint.FontMetrics fontMetrics = textPaint.getFontMetrics();
+        this.lineHeight = fontMetrics.descent - fontMetrics.ascent;
+        this.baselineOffset = -fontMetrics.ascent;
+        this.ellipsisWidth = textPaint.measureText(ELLIPSIS);
+        this.lineStarts = new int[maxLines];
+        this.lineEnds = new int[maxLines];
+        this.lineWidths = new float[maxLines];
+    }
+
+    /**
+     * @param radius circle radius
+     * @param anchor vertical offset of block edge relative to circle center, block bottom edge if block is bottom
+     *               aligned, top edge otherwise
+     */
+    void measure(float radius, float anchor) {
+        this.radius = radius;
+        this.anchor = anchor;
+        laidOut = false;
+    }
+
+    /**
+     * @return true if lines changed and block must be drawn again
+     */
+    boolean setText(CharSequence text) {
+        if (laidOut && TextUtils.equals(text, this.text)) {
+            return false;
+        }
+        this.text = text;
+        layout();
+        laidOut = true;
+        return true;
+    }
+
+    float getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return top of the tallest possible block relative to circle center
+     */
+    float getTop() {
+        return bottomAligned ? anchor - getHeight() : anchor;
+    }
+
+    float getHeight() {
+        return maxLines * lineHeight;
+    }
+
+    int getLinesCount() {
+        return linesCount;
+    }
+
+    boolean isEllipsized() {
+        return ellipsized;
+    }
+
+    void draw(Canvas canvas, float centerX, float centerY) {
+        for (int i = 0; i < linesCount; i++) {
+            float x = centerX - lineWidths[i] / 2;
+            float y = centerY + getLineTop(i, linesCount) + baselineOffset;
+            canvas.drawText(text, lineStarts[i], lineEnds[i], x, y, textPaint);
+            if (ellipsized && i == linesCount - 1) {
+                canvas.drawText(ELLIPSIS, x + lineWidths[i] - ellipsisWidth, y, textPaint);
+            }
+        }
+    }
+
+    /**
+     * Bottom aligned block is wider at the bottom, so fewer lines are tried first to keep short text on the widest
+     * line.
+     */
+    private void layout() {
+        linesCount = 0;
+        ellipsized = false;
+        if (TextUtils.isEmpty(text)) {
+            return;
+        }
+        int lines = bottomAligned ? 1 : maxLines;
+        while (!breakLines(lines) && lines < maxLines) {
+            lines++;
+        }
+    }
+
+    /**
+     * @return true if whole text fits into given lines count
+     */
+    private boolean breakLines(int lines) {
+        int length = text.length();
+        int start = skipSpaces(0, length);
+        linesCount = 0;
+        ellipsized = false;
+        while (start < length && linesCount < lines) {
+            float width = getLineWidth(linesCount, lines);
+            int fitting = textPaint.breakText(text, start, length, true, width, null);
+            if (fitting <= 0) {
+                break;
+            }
+            int end = start + fitting;
+            if (end < length && linesCount == lines - 1) {
+                if (lines < maxLines) {
+                    return false;
+                }
+                end = start + textPaint.breakText(text, start, length, true, Math.max(0, width - ellipsisWidth),
+                        null);
+                end = trimSpaces(start, end);
+                addLine(start, end, textPaint.measureText(text, start, end) + ellipsisWidth);
+                ellipsized = true;
+                return true;
+            }
+            if (end < length && text.charAt(end) != ' ') {
+                int lastSpace = lastSpace(start, end);
+                if (lastSpace > start) {
+                    end = lastSpace;
+                }
+            }
+            int lineEnd = trimSpaces(start, end);
+            addLine(start, lineEnd, textPaint.measureText(text, start, lineEnd));
+            start = skipSpaces(end, length);
+        }
+        return start >= length;
+    }
+
+    private void addLine(int start, int end, float width) {
+        lineStarts[linesCount] = start;
+        lineEnds[linesCount] = end;
+        lineWidths[linesCount] = width;
+        linesCount++;
+    }
+
+    /**
+     * Line fits between circle edges at the edge of line further from circle center.
+     */
+    private float getLineWidth(int line, int lines) {
+        float top = getLineTop(line, lines);
+        float farthestOffset = Math.max(Math.abs(top), Math.abs(top + lineHeight));
+        if (farthestOffset >= radius) {
+            return 0;
+        }
+        return (float) (2 * Math.sqrt(radius * radius - farthestOffset * farthestOffset));
+    }
+
+    private float getLineTop(int line, int lines) {
+        return bottomAligned ? anchor - (lines - line) * lineHeight : anchor + line * lineHeight;
+    }
+
+    private int lastSpace(int start, int end) {
+        for (int i = end - 1; i > start; i--) {
+            if (text.charAt(i) == ' ') {
+                return i;
+            }
+        }
+        return start;
+    }
+
+    private int skipSpaces(int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimSpaces(int start, int end) {
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -1,5 +1,12 @@
 package com.macoscope.gcbwatchface.drawer;
 
 public interface Drawer {
-    void setAmbientMode(boolean ambientModeOn);
+    /**
+     * Ambient variants of drawn assets are prepared when ambient mode is turned on, so ambient frames only composite
+     * them.
+     *
+     * @param lowBitAmbient whether the display supports fewer bits for each color in ambient mode, anti-aliasing
+     *                      should be disabled then
+     */
+    void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient);
 }
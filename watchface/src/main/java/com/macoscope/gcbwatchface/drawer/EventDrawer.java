@@ -2,16 +2,13 @@ package com.macoscope.gcbwatchface.drawer;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.text.TextPaint;
-import android.text.TextUtils;
-import android.view.Gravity;
-import android.view.View;
-import android.widget.LinearLayout;
-import android.widget.TextView;
 
 import com.macoscope.gcbwatchface.ColorPalette;
 import com.macoscope.gcbwatchface.R;
@@ -23,8 +20,10 @@ public class EventDrawer implements Drawer {
     private static final int MAX_CALENDAR_NAME_LINES = 1;
     private TextPaint startsInTextPaint;
     private TextPaint minutesTextPaint;
-    private TextView eventNameTextView;
-    private TextView eventCalendarTextView;
+    private TextPaint eventNameTextPaint;
+    private TextPaint eventCalendarTextPaint;
+    private TextBlock eventNameBlock;
+    private TextBlock eventCalendarBlock;
     private Paint bitmapPaint;
 
     private String startsIn;
@@ -36,55 +35,41 @@ public class EventDrawer implements Drawer {
     private int calendarNameOffset;
 
     private Resources resources;
-    private int eventNameHeight;
-    private int desiredEventNameWidth;
-    private int calendarDesiredWidth;
+    private TextLayoutCache textLayoutCache;
 
-    public EventDrawer(Context context, Typeface typefaceLight, ColorPalette colorPalette, Paint bitmapPaint) {
+    public EventDrawer(Context context, TextLayoutCache textLayoutCache, Typeface typefaceLight,
+                       ColorPalette colorPalette, Paint bitmapPaint) {
         this.bitmapPaint = bitmapPaint;
+        this.textLayoutCache = textLayoutCache;
         this.resources = context.getResources();
         this.startInMinutesPadding = MeasureUtil.getDimensionToPixel(resources, R.dimen.start_in_minutes_padding);
         this.startsIn = resources.getString(R.string.starts_in);
 
-        initEventNameTextView(context, colorPalette);
+        eventNameTextPaint = createBlockTextPaint(colorPalette, MeasureUtil.getDimensionToPixel(resources,
+                R.dimen.event_name_font));
         initStartsInTextPaint(colorPalette, MeasureUtil.getDimensionToPixel(resources, R.dimen.event_starts_in_font));
         String minutesString = resources.getQuantityString(R.plurals.minutes, MeasureUtil.ALL_DIGITS,
                 MeasureUtil.ALL_DIGITS);
         initMinutesTextPaint(typefaceLight, colorPalette, MeasureUtil.getDimensionToPixel(resources,
                 R.dimen.minutes_to_event_font), minutesString);
-        initEventCalendarTextView(context, colorPalette);
+        eventCalendarTextPaint = createBlockTextPaint(colorPalette, MeasureUtil.getDimensionToPixel(resources,
+                R.dimen.event_calendar_font));
         //XXX must be initialized after paints measurements
         this.calendarNameOffset = startsInHeight + startInMinutesPadding + startInMinutesHeight + MeasureUtil
                 .getDimensionToPixel(resources, R.dimen.calendar_name_padding);
+        this.eventNameBlock = new TextBlock(new CircularTextLayout(eventNameTextPaint, MAX_TITLE_LINES, true));
+        this.eventCalendarBlock = new TextBlock(new CircularTextLayout(eventCalendarTextPaint,
+                MAX_CALENDAR_NAME_LINES, false));
     }
 
-    private void initEventNameTextView(Context context, ColorPalette colorPalette) {
-        eventNameTextView = new TextView(context);
-        eventNameTextView.setTypeface(Typeface.DEFAULT);
-        eventNameTextView.setTextSize(context.getResources().getDimension(R.dimen.event_name_font));
-        eventNameTextView.setTextColor(colorPalette.colorWhite);
-        LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT);
-        eventNameTextView.setLayoutParams(layoutParams);
-        eventNameTextView.setLines(MAX_TITLE_LINES);
-        eventNameTextView.setEllipsize(TextUtils.TruncateAt.END);
-        eventNameTextView.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
-        eventNameTextView.setGravity(Gravity.BOTTOM);
-    }
-
-    private void initEventCalendarTextView(Context context, ColorPalette colorPalette) {
-        eventCalendarTextView = new TextView(context);
-        eventCalendarTextView.setTypeface(Typeface.DEFAULT);
-        eventCalendarTextView.setTextSize(context.getResources().getDimension(R.dimen.event_calendar_font));
-        eventCalendarTextView.setTextColor(colorPalette.colorWhite);
-        LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT);
-        eventCalendarTextView.setLayoutParams(layoutParams);
-        eventCalendarTextView.setLines(MAX_CALENDAR_NAME_LINES);
-        eventCalendarTextView.setEllipsize(TextUtils.TruncateAt.END);
-        eventCalendarTextView.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
+    private TextPaint createBlockTextPaint(ColorPalette colorPalette, float textSize) {
+        TextPaint textPaint = new TextPaint();
+        textPaint.setAntiAlias(true);
+        textPaint.setTypeface(Typeface.DEFAULT);
+        textPaint.setColor(colorPalette.colorWhite);
+        textPaint.setStyle(Paint.Style.FILL);
+        textPaint.setTextSize(textSize);
+        return textPaint;
     }
 
     private void initStartsInTextPaint(ColorPalette colorPalette, float textSize) {
@@ -95,7 +80,7 @@ public class EventDrawer implements Drawer {
         startsInTextPaint.setTextSize(textSize);
         startsInTextPaint.setTextAlign(Paint.Align.CENTER);
         Rect textBounds = new Rect();
-        startsInTextPaint.getTextBounds(startsIn, 0, startsIn.length(), textBounds);
+        textLayoutCache.getTextBounds(startsIn, startsInTextPaint, textBounds);
         startsInHeight = textBounds.height();
     }
 
@@ -106,71 +91,77 @@ public class EventDrawer implements Drawer {
         minutesTextPaint.setColor(colorPalette.colorWhite);
         minutesTextPaint.setStyle(Paint.Style.FILL);
         minutesTextPaint.setTextSize(textSize);
-        minutesTextPaint.setTextAlign(Paint.Align.CENTER);
+        minutesTextPaint.setTextAlign(Paint.Align.LEFT);
         minutesTextPaint.setTypeface(typefaceLight);
         Rect textBounds = new Rect();
-        minutesTextPaint.getTextBounds(minutesString, 0, minutesString.length(), textBounds);
+        textLayoutCache.getTextBounds(minutesString, minutesTextPaint, textBounds);
         startInMinutesHeight = textBounds.height();
     }
 
+    /**
+     * Event name is drawn above inner oval diameter, calendar name below minutes to event.
+     */
     public void measure(float radius){
-        eventNameHeight = measureTextViewHeight(eventNameTextView);
-        desiredEventNameWidth = (int) Math.sqrt(radius * radius - Math.pow(eventNameHeight, 2)) * 2;
-        applyDesiredWidth(eventNameTextView, desiredEventNameWidth);
-
-        int calendarMeasuredHeight = measureTextViewHeight(eventCalendarTextView);
-        float top = calendarNameOffset + calendarMeasuredHeight;
-        calendarDesiredWidth = (int) Math.sqrt(radius * radius + top * top);
-        applyDesiredWidth(eventCalendarTextView, calendarDesiredWidth);
+        eventNameBlock.measure(radius, 0);
+        eventCalendarBlock.measure(radius, calendarNameOffset);
     }
 
     public void draw(EventFormatter eventFormatter, Canvas canvas, float centerX, float centerY, long timeInMillis) {
-        drawEventName(canvas, bitmapPaint, eventFormatter.getName(), centerX, centerY);
-        drawEventCalendarName(canvas, bitmapPaint, eventFormatter.getCalendarName(), centerX, centerY);
+        eventNameBlock.draw(canvas, bitmapPaint, eventFormatter.getName(), centerX, centerY);
+        eventCalendarBlock.draw(canvas, bitmapPaint, eventFormatter.getCalendarName(), centerX, centerY);
         canvas.drawText(startsIn, centerX, centerY + startsInHeight, startsInTextPaint);
-        canvas.drawText(eventFormatter.getMinutesToEventString(resources, timeInMillis), centerX, centerY +
-                startsInHeight + startInMinutesPadding + startInMinutesHeight, minutesTextPaint);
+        String minutesString = eventFormatter.getMinutesToEventString(resources, timeInMillis);
+        float minutesWidth = textLayoutCache.measureText(minutesString, minutesTextPaint);
+        canvas.drawText(minutesString, centerX - minutesWidth / 2,
+                centerY + startsInHeight + startInMinutesPadding + startInMinutesHeight, minutesTextPaint);
     }
 
-    /**
-     * Draw event name above inner oval diameter.
-     */
-    private void drawEventName(Canvas canvas, Paint bitmapPaint, CharSequence eventName, float centerX, float centerY) {
-        eventNameTextView.setText(eventName);
-        eventNameTextView.setDrawingCacheEnabled(true);
-        if (eventNameTextView.getDrawingCache() != null) {
-            canvas.drawBitmap(eventNameTextView.getDrawingCache(), centerX - desiredEventNameWidth / 2,
-                    centerY - eventNameHeight, bitmapPaint);
-        }
-        eventNameTextView.setDrawingCacheEnabled(false);
+    public void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient) {
+        startsInTextPaint.setAntiAlias(!(ambientModeOn && lowBitAmbient));
+        minutesTextPaint.setAntiAlias(!(ambientModeOn && lowBitAmbient));
     }
 
-    private void drawEventCalendarName(Canvas canvas, Paint bitmapPaint, CharSequence calendarName,
-                                       float centerX, float centerY) {
-        eventCalendarTextView.setText(calendarName);
-        eventCalendarTextView.setDrawingCacheEnabled(true);
+    /**
+     * Text layout rendered into retained bitmap, rendered again only when its lines change. Frames in between only
+     * draw the bitmap.
+     */
+    private static class TextBlock {
+        private final CircularTextLayout layout;
+        private final Canvas bitmapCanvas = new Canvas();
+        private Bitmap bitmap;
 
-        if (eventCalendarTextView.getDrawingCache() != null) {
-            canvas.drawBitmap(eventCalendarTextView.getDrawingCache(), centerX - calendarDesiredWidth / 2,
-                    centerY + calendarNameOffset, bitmapPaint);
+        TextBlock(CircularTextLayout layout) {
+            this.layout = layout;
         }
-        eventCalendarTextView.setDrawingCacheEnabled(false);
-    }
 
-    private int measureTextViewHeight(TextView textView) {
-        textView.measure(View.MeasureSpec.makeMeasureSpec(1, View.MeasureSpec.EXACTLY),
-                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
-        return textView.getMeasuredHeight();
-    }
+        void measure(float radius, float anchor) {
+            layout.measure(radius, anchor);
+            int width = (int) Math.ceil(2 * radius);
+            int height = (int) Math.ceil(layout.getHeight());
+            if (bitmap != null && (bitmap.getWidth() != width || bitmap.getHeight() != height)) {
+                recycle();
+            }
+            if (bitmap == null && width > 0 && height > 0) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                bitmapCanvas.setBitmap(bitmap);
+            }
+        }
 
-    private void applyDesiredWidth(TextView textView, int desiredWidth) {
-        textView.measure(View.MeasureSpec.makeMeasureSpec(desiredWidth, View.MeasureSpec.EXACTLY),
-                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
-        textView.layout(0, 0, textView.getMeasuredWidth(), textView.getMeasuredHeight());
-    }
+        void draw(Canvas canvas, Paint bitmapPaint, CharSequence text, float centerX, float centerY) {
+            if (bitmap == null) {
+                return;
+            }
+            if (layout.setText(text)) {
+                bitmap.eraseColor(Color.TRANSPARENT);
+                layout.draw(bitmapCanvas, layout.getRadius(), -layout.getTop());
+            }
+            canvas.drawBitmap(bitmap, centerX - layout.getRadius(), centerY + layout.getTop(), bitmapPaint);
+        }
 
-    public void setAmbientMode(boolean ambientModeOn) {
-        startsInTextPaint.setAntiAlias(!ambientModeOn);
-        minutesTextPaint.setAntiAlias(!ambientModeOn);
+        private void recycle() {
+            bitmapCanvas.setBitmap(null);
+            bitmap.recycle();
+            bitmap = null;
+        }
     }
 }
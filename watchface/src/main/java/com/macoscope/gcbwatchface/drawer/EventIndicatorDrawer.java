@@ -22,6 +22,14 @@ public class EventIndicatorDrawer implements Drawer {
     private RectF innerOval;
     private RectF arcRect;
     private float ovalRotation;
+    private Paint ambientOvalPaint;
+    /**
+     * Dashed inner oval as 8-bit alpha mask covering {@link #arcRect}, baked when ambient mode is turned on and kept
+     * until size or low-bit ambient changes.
+     */
+    private Bitmap ambientOval;
+    private boolean ambientMode;
+    private boolean lowBitAmbient;
 
     @VisibleForTesting
     private EventIndicatorDrawer() {
@@ -33,7 +41,12 @@ public class EventIndicatorDrawer implements Drawer {
 
         initInnerOvalPaint(colorPalette, innerStrokeSize);
         initInactiveInnerPiecesPaint();
+        initAmbientOvalPaint(colorPalette);
+    }
 
+    private void initAmbientOvalPaint(ColorPalette colorPalette) {
+        ambientOvalPaint = new Paint();
+        ambientOvalPaint.setColor(colorPalette.colorWhite);
     }
 
     private void initInnerOvalPaint(ColorPalette colorPalette, float innerStrokeSize) {
@@ -61,14 +74,21 @@ public class EventIndicatorDrawer implements Drawer {
         ovalRotation = dashedCirclePaintWrapper.getRotation(0);
         arcRect.set(innerOval.left - innerStrokeSize, innerOval.top - innerStrokeSize,
                 innerOval.right + innerStrokeSize, innerOval.bottom + innerStrokeSize);
-
+        recycleAmbientOval();
+        if (ambientMode) {
+            bakeAmbientOval();
+        }
     }
 
     public void draw(int minutes) {
-        indicatorCanvas.save();
-        indicatorCanvas.rotate(ovalRotation, innerOval.centerX(), innerOval.centerY());
-        indicatorCanvas.drawOval(innerOval, innerOvalPaint);
-        indicatorCanvas.restore();
+        if (ambientMode) {
+            indicatorCanvas.drawBitmap(ambientOval, arcRect.left, arcRect.top, ambientOvalPaint);
+        } else {
+            indicatorCanvas.save();
+            indicatorCanvas.rotate(ovalRotation, innerOval.centerX(), innerOval.centerY());
+            indicatorCanvas.drawOval(innerOval, innerOvalPaint);
+            indicatorCanvas.restore();
+        }
         indicatorCanvas.drawArc(arcRect, getStartAngle(minutes), ARC_MASK_SWAP_ANGLE, true, innerArcPaint);
     }
 
@@ -81,8 +101,35 @@ public class EventIndicatorDrawer implements Drawer {
         return minutes == 0 ? -60 : (minutes * 6 / 30) * 30 - 60;
     }
 
-    public void setAmbientMode(boolean ambientModeOn) {
-        innerOvalPaint.setAntiAlias(!ambientModeOn);
-        innerArcPaint.setAntiAlias(!ambientModeOn);
+    /**
+     * Dashed oval is drawn with the same paint as in interactive mode, so low-bit anti-aliasing must be set before.
+     */
+    private void bakeAmbientOval() {
+        ambientOval = Bitmap.createBitmap((int) Math.ceil(arcRect.width()), (int) Math.ceil(arcRect.height()),
+                Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(ambientOval);
+        canvas.translate(-arcRect.left, -arcRect.top);
+        canvas.rotate(ovalRotation, innerOval.centerX(), innerOval.centerY());
+        canvas.drawOval(innerOval, innerOvalPaint);
+    }
+
+    private void recycleAmbientOval() {
+        if (ambientOval != null) {
+            ambientOval.recycle();
+            ambientOval = null;
+        }
+    }
+
+    public void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient) {
+        innerOvalPaint.setAntiAlias(!(ambientModeOn && lowBitAmbient));
+        innerArcPaint.setAntiAlias(!(ambientModeOn && lowBitAmbient));
+        ambientMode = ambientModeOn;
+        if (lowBitAmbient != this.lowBitAmbient) {
+            this.lowBitAmbient = lowBitAmbient;
+            recycleAmbientOval();
+        }
+        if (ambientModeOn && ambientOval == null && innerOval != null) {
+            bakeAmbientOval();
+        }
     }
 }
@@ -8,6 +8,7 @@ import android.graphics.PorterDuffXfermode;
 import android.graphics.RectF;
 import android.graphics.SweepGradient;
 import android.support.annotation.VisibleForTesting;
+import android.util.LruCache;
 
 import com.macoscope.gcbwatchface.ColorPalette;
 import com.macoscope.gcbwatchface.util.DashedCirclePaintWrapper;
@@ -21,11 +22,36 @@ public class FaceDrawer implements Drawer {
      * Rotation angle offset which must be applied as rotation to canvas if ovals should be drawn from top
      */
     private static final int OVAL_ANGLE_OFFSET = -90;
+    /**
+     * Swap angle changes every 5 minutes, so there are 12 ring states per hour.
+     */
+    public static final int MINUTES_PER_RING_STATE = 5;
+    private static final int RING_STATES_PER_HOUR = 60 / MINUTES_PER_RING_STATE;
+    /**
+     * Ring states follow each other, so current and previous state are enough.
+     */
+    private static final int RING_STATES_CACHE_SIZE = 2;
+    /**
+     * Alpha of inactive ring pieces in ambient mode, low-bit displays can't show grey so they are hidden there.
+     */
+    private static final int AMBIENT_INACTIVE_ALPHA = 0x50;
 
     private Canvas faceCanvas;
     private ColorPalette colorPalette;
     private Paint gradientPaint;
     private Paint arcPaint;
+    private Paint ringStatePaint;
+    private LruCache<Integer, Bitmap> ringStates;
+    private Paint ambientRingPaint;
+    private Paint ambientArcPaint;
+    private Paint ambientRingStatePaint;
+    /**
+     * Ring states of an hour as 8-bit alpha masks. Missing states are baked when ambient mode is turned on, so ambient
+     * frames only draw them. Kept until size or low-bit ambient changes.
+     */
+    private Bitmap[] ambientRingStates = new Bitmap[RING_STATES_PER_HOUR];
+    private boolean ambientMode;
+    private boolean lowBitAmbient;
     private DashedCirclePaintWrapper dashedCirclePaintWrapper;
     private RectF oval;
     private RectF arcRect;
@@ -45,6 +71,9 @@ public class FaceDrawer implements Drawer {
         this.stroke = strokeSize;
         initGradientPaint(strokeSize);
         initInactivePiecesPaint();
+        initRingStatePaint();
+        initRingStatesCache();
+        initAmbientPaints();
     }
 
     private void initGradientPaint(float strokeSize) {
@@ -63,7 +92,38 @@ public class FaceDrawer implements Drawer {
         arcPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
     }
 
+    private void initRingStatePaint() {
+        ringStatePaint = new Paint();
+        ringStatePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+    }
+
+    private void initAmbientPaints() {
+        ambientRingPaint = new Paint();
+        ambientRingPaint.setAntiAlias(true);
+        ambientRingPaint.setStrokeWidth(stroke);
+        ambientRingPaint.setStyle(Paint.Style.STROKE);
+
+        ambientArcPaint = new Paint();
+        ambientArcPaint.setAntiAlias(true);
+        ambientArcPaint.setAlpha(AMBIENT_INACTIVE_ALPHA);
+        ambientArcPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
+
+        ambientRingStatePaint = new Paint();
+        ambientRingStatePaint.setColor(colorPalette.colorWhite);
+        ambientRingStatePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+    }
+
+    private void initRingStatesCache() {
+        ringStates = new LruCache<Integer, Bitmap>(RING_STATES_CACHE_SIZE) {
+            @Override
+            protected void entryRemoved(boolean evicted, Integer key, Bitmap oldValue, Bitmap newValue) {
+                oldValue.recycle();
+            }
+        };
+    }
+
     public void measure(Bitmap faceBitmap, RectF outerOval, int width, int height) {
+        ringStates.evictAll();
         float ovalWidth = width - padding * 2 + stroke * 2;
         float ovalHeight = height - padding * 2 + stroke * 2;
         centerX = ovalWidth / 2;
@@ -76,14 +136,79 @@ public class FaceDrawer implements Drawer {
         dashedCirclePaintWrapper.onDiameterChange(outerOval.width());
         ovalRotation = dashedCirclePaintWrapper.getRotation(OVAL_ANGLE_OFFSET);
         arcRect = new RectF(oval.left - padding, oval.top - padding, oval.right + padding, oval.bottom + padding);
+        recycleAmbientRingStates();
+        if (ambientMode) {
+            bakeAmbientRingStates();
+        }
     }
 
+    /**
+     * Replace whole face bitmap content with ring state for given minutes.
+     */
     public void draw(int minutes) {
-        faceCanvas.save();
-        faceCanvas.rotate(ovalRotation, centerX, centerY);
-        faceCanvas.drawOval(oval, gradientPaint);
-        faceCanvas.restore();
-        faceCanvas.drawArc(arcRect, OVAL_ANGLE_OFFSET, getSwapAngle(minutes), true, arcPaint);
+        if (ambientMode) {
+            faceCanvas.drawBitmap(ambientRingStates[minutes / MINUTES_PER_RING_STATE], 0, 0, ambientRingStatePaint);
+        } else {
+            faceCanvas.drawBitmap(getRingState(minutes), 0, 0, ringStatePaint);
+        }
+    }
+
+    private Bitmap getRingState(int minutes) {
+        int state = minutes / MINUTES_PER_RING_STATE;
+        Bitmap ringState = ringStates.get(state);
+        if (ringState == null) {
+            ringState = renderRingState(minutes);
+            ringStates.put(state, ringState);
+        }
+        return ringState;
+    }
+
+    private Bitmap renderRingState(int minutes) {
+        Bitmap ringState = Bitmap.createBitmap(faceCanvas.getWidth(), faceCanvas.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(ringState);
+        canvas.save();
+        canvas.rotate(ovalRotation, centerX, centerY);
+        canvas.drawOval(oval, gradientPaint);
+        canvas.restore();
+        canvas.drawArc(arcRect, OVAL_ANGLE_OFFSET, getSwapAngle(minutes), true, arcPaint);
+        return ringState;
+    }
+
+    private void bakeAmbientRingStates() {
+        if (faceCanvas == null) {
+            return;
+        }
+        for (int state = 0; state < RING_STATES_PER_HOUR; state++) {
+            if (ambientRingStates[state] == null) {
+                ambientRingStates[state] = bakeAmbientRingState(state);
+            }
+        }
+    }
+
+    /**
+     * Ambient ring is drawn with a single color, so only alpha is kept: active pieces are opaque and inactive pieces
+     * are dimmed.
+     */
+    private Bitmap bakeAmbientRingState(int state) {
+        ambientRingPaint.setPathEffect(gradientPaint.getPathEffect());
+        Bitmap ringState = Bitmap.createBitmap(faceCanvas.getWidth(), faceCanvas.getHeight(), Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(ringState);
+        canvas.save();
+        canvas.rotate(ovalRotation, centerX, centerY);
+        canvas.drawOval(oval, ambientRingPaint);
+        canvas.restore();
+        canvas.drawArc(arcRect, OVAL_ANGLE_OFFSET, getSwapAngle(state * MINUTES_PER_RING_STATE), true,
+                ambientArcPaint);
+        return ringState;
+    }
+
+    private void recycleAmbientRingStates() {
+        for (int state = 0; state < ambientRingStates.length; state++) {
+            if (ambientRingStates[state] != null) {
+                ambientRingStates[state].recycle();
+                ambientRingStates[state] = null;
+            }
+        }
     }
 
     @VisibleForTesting
@@ -97,8 +222,21 @@ public class FaceDrawer implements Drawer {
         }
     }
 
-    public void setAmbientMode(boolean ambientModeOn) {
-        gradientPaint.setAntiAlias(!ambientModeOn);
-        arcPaint.setAntiAlias(!ambientModeOn);
+    /**
+     * Interactive ring states are drawn only in interactive mode and ambient ring states only in ambient mode, so both
+     * are kept across mode changes.
+     */
+    public void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient) {
+        ambientMode = ambientModeOn;
+        if (lowBitAmbient != this.lowBitAmbient) {
+            this.lowBitAmbient = lowBitAmbient;
+            ambientRingPaint.setAntiAlias(!lowBitAmbient);
+            ambientArcPaint.setAntiAlias(!lowBitAmbient);
+            ambientArcPaint.setAlpha(lowBitAmbient ? 0 : AMBIENT_INACTIVE_ALPHA);
+            recycleAmbientRingStates();
+        }
+        if (ambientModeOn) {
+            bakeAmbientRingStates();
+        }
     }
 }
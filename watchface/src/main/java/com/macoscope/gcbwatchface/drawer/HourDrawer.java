@@ -1,8 +1,10 @@
 package com.macoscope.gcbwatchface.drawer;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.text.TextPaint;
 
@@ -10,45 +12,152 @@ import com.macoscope.gcbwatchface.ColorPalette;
 import com.macoscope.gcbwatchface.formatter.HourFormatter;
 import com.macoscope.gcbwatchface.util.MeasureUtil;
 
-import java.util.Calendar;
-import java.util.TimeZone;
-
+/**
+ * Draws hour labels from sprite atlas with all 24 labels in both hour colors, drawing a frame only copies one sprite.
+ * Interactive atlas is rendered on first frame. Ambient atlas is an 8-bit alpha mask with labels in one color block,
+ * tinted with grey variant of hour color when drawn. It's rendered when ambient mode is turned on and rendered again
+ * only when low-bit ambient changes. Both are kept across ambient mode changes.
+ */
 public class HourDrawer implements Drawer {
+    private static final int ATLAS_COLUMNS = 6;
+    private static final int ATLAS_ROWS_PER_COLOR = HourFormatter.HOURS_PER_DAY / ATLAS_COLUMNS;
+    private static final int HALF_HOUR_MINUTES = 30;
+    private static final String[] HOUR_LABELS = new String[HourFormatter.HOURS_PER_DAY];
+
+    static {
+        for (int hour = 0; hour < HOUR_LABELS.length; hour++) {
+            HOUR_LABELS[hour] = String.valueOf(hour);
+        }
+    }
 
     private ColorPalette colorPalette;
     private Paint hourTextPaint;
+    private Paint spritePaint;
     private int hourHeight;
-    private HourFormatter hourFormatter;
 
-    public HourDrawer(ColorPalette colorPalette, Typeface typeface, float textSize) {
+    private int[] hourColors;
+    private int[] ambientHourColors;
+    private boolean ambientMode;
+    private boolean lowBitAmbient;
+    private Bitmap atlas;
+    private Bitmap ambientAtlas;
+    private int cellWidth;
+    private int cellHeight;
+    private float baselineOffset;
+    private final int[] labelWidths = new int[HourFormatter.HOURS_PER_DAY];
+    private final Rect spriteSource = new Rect();
+    private final RectF spriteDestination = new RectF();
+
+    public HourDrawer(ColorPalette colorPalette, TextLayoutCache textLayoutCache, Typeface typeface, float textSize) {
         this.colorPalette = colorPalette;
-        hourFormatter = new HourFormatter();
-        initHourTextPaint(typeface, textSize);
+        this.hourColors = new int[]{colorPalette.getHourColor(0), colorPalette.getHourColor(HALF_HOUR_MINUTES)};
+        this.ambientHourColors = new int[hourColors.length];
+        initHourTextPaint(textLayoutCache, typeface, textSize);
+        initSpritePaint();
     }
 
-    private void initHourTextPaint(Typeface typeface, float textSize) {
+    private void initHourTextPaint(TextLayoutCache textLayoutCache, Typeface typeface, float textSize) {
         hourTextPaint = new TextPaint();
         hourTextPaint.setTextSize(textSize);
-        hourTextPaint.setTextAlign(Paint.Align.CENTER);
+        hourTextPaint.setTextAlign(Paint.Align.LEFT);
         hourTextPaint.setTypeface(typeface);
         hourTextPaint.setAntiAlias(true);
         Rect textBounds = new Rect();
         String digits = String.format("%d", MeasureUtil.ALL_DIGITS);
-        hourTextPaint.getTextBounds(digits, 0, digits.length(), textBounds);
+        textLayoutCache.getTextBounds(digits, hourTextPaint, textBounds);
         hourHeight = textBounds.height();
     }
 
-    public void draw(Canvas canvas, Calendar time, float centerX, float centerY) {
-        hourTextPaint.setColor(colorPalette.getHourColor(time.get(Calendar.MINUTE)));
-        canvas.drawText(hourFormatter.getHourToDisplay(time), centerX, centerY + hourHeight / 2, hourTextPaint);
+    private void initSpritePaint() {
+        spritePaint = new Paint();
+        spritePaint.setFilterBitmap(true);
     }
 
-    public void setTimeZone(TimeZone timeZone){
-        hourFormatter.setTimeZone(timeZone);
+    /**
+     * @param hourOfDay 0-23
+     */
+    public void draw(Canvas canvas, int hourOfDay, int minutes, float centerX, float centerY) {
+        if (cellHeight == 0) {
+            measureCells();
+        }
+        int hour = HourFormatter.getHourToDisplay(hourOfDay, minutes);
+        int colorIndex = colorPalette.getHourColor(minutes) == hourColors[0] ? 0 : 1;
+        int row;
+        Bitmap spriteAtlas;
+        if (ambientMode) {
+            spriteAtlas = ambientAtlas;
+            spritePaint.setColor(ambientHourColors[colorIndex]);
+            row = hour / ATLAS_COLUMNS;
+        } else {
+            if (atlas == null) {
+                atlas = renderAtlas(false);
+            }
+            spriteAtlas = atlas;
+            row = colorIndex * ATLAS_ROWS_PER_COLOR + hour / ATLAS_COLUMNS;
+        }
+        int left = (hour % ATLAS_COLUMNS) * cellWidth;
+        int top = row * cellHeight;
+        int labelWidth = labelWidths[hour];
+        spriteSource.set(left, top, left + labelWidth, top + cellHeight);
+        float destinationLeft = centerX - labelWidth / 2f;
+        float destinationTop = centerY + hourHeight / 2 - baselineOffset;
+        spriteDestination.set(destinationLeft, destinationTop, destinationLeft + labelWidth,
+                destinationTop + cellHeight);
+        canvas.drawBitmap(spriteAtlas, spriteSource, spriteDestination, spritePaint);
     }
 
+    private void measureCells() {
+        Paint.FontMetrics fontMetrics = hourTextPaint.getFontMetrics();
+        baselineOffset = -fontMetrics.ascent;
+        cellHeight = (int) Math.ceil(fontMetrics.descent - fontMetrics.ascent);
+        cellWidth = 0;
+        for (int hour = 0; hour < HOUR_LABELS.length; hour++) {
+            labelWidths[hour] = (int) Math.ceil(hourTextPaint.measureText(HOUR_LABELS[hour]));
+            cellWidth = Math.max(cellWidth, labelWidths[hour]);
+        }
+    }
+
+    private Bitmap renderAtlas(boolean ambient) {
+        int colorsCount = ambient ? 1 : hourColors.length;
+        Bitmap renderedAtlas = Bitmap.createBitmap(cellWidth * ATLAS_COLUMNS,
+                cellHeight * ATLAS_ROWS_PER_COLOR * colorsCount,
+                ambient ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888);
+        hourTextPaint.setAntiAlias(!(ambient && lowBitAmbient));
+        Canvas atlasCanvas = new Canvas(renderedAtlas);
+        for (int colorIndex = 0; colorIndex < colorsCount; colorIndex++) {
+            hourTextPaint.setColor(hourColors[colorIndex]);
+            for (int hour = 0; hour < HOUR_LABELS.length; hour++) {
+                int row = colorIndex * ATLAS_ROWS_PER_COLOR + hour / ATLAS_COLUMNS;
+                atlasCanvas.drawText(HOUR_LABELS[hour], (hour % ATLAS_COLUMNS) * cellWidth,
+                        row * cellHeight + baselineOffset, hourTextPaint);
+            }
+        }
+        return renderedAtlas;
+    }
+
+    private void recycleAmbientAtlas() {
+        if (ambientAtlas != null) {
+            ambientAtlas.recycle();
+            ambientAtlas = null;
+        }
+    }
 
-    public void setAmbientMode(boolean ambientModeOn){
-        hourTextPaint.setAntiAlias(!ambientModeOn);
+    public void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient){
+        spritePaint.setFilterBitmap(!(ambientModeOn && lowBitAmbient));
+        for (int i = 0; i < hourColors.length; i++) {
+            ambientHourColors[i] = lowBitAmbient ? colorPalette.colorWhite
+                    : colorPalette.getAmbientColor(hourColors[i]);
+        }
+        ambientMode = ambientModeOn;
+        if (lowBitAmbient != this.lowBitAmbient) {
+            this.lowBitAmbient = lowBitAmbient;
+            recycleAmbientAtlas();
+        }
+        if (ambientModeOn && ambientAtlas == null) {
+            if (cellHeight == 0) {
+                measureCells();
+            }
+            ambientAtlas = renderAtlas(true);
+        }
     }
 }
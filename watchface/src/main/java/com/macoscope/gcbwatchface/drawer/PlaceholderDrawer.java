@@ -14,13 +14,13 @@ public class PlaceholderDrawer implements Drawer {
     private float ovalsSummaryGap;
     private TextPaint textPaint;
     private String message;
-    private StaticLayout staticLayout;
     private int layoutWidth = -1;
-    private boolean needNewStaticLayout = true;
+    private TextLayoutCache textLayoutCache;
 
-    public PlaceholderDrawer(ColorPalette colorPalette, float textSize, String message, float innerStrokeSize,
-                             float outerStroke, float ovalsGap) {
+    public PlaceholderDrawer(ColorPalette colorPalette, TextLayoutCache textLayoutCache, float textSize,
+                             String message, float innerStrokeSize, float outerStroke, float ovalsGap) {
         this.colorPalette = colorPalette;
+        this.textLayoutCache = textLayoutCache;
         this.ovalsSummaryGap = 2 * innerStrokeSize + 2 * outerStroke + 2 * ovalsGap;
         initTextPaint(textSize);
         this.message = message;
@@ -28,7 +28,6 @@ public class PlaceholderDrawer implements Drawer {
 
     public void setMessage(String message) {
         this.message = message;
-        needNewStaticLayout = !message.equals(this.message);
     }
 
     private void initTextPaint(float textSize) {
@@ -47,18 +46,15 @@ public class PlaceholderDrawer implements Drawer {
     }
 
     public void draw(Canvas canvas, float boundsWidth, float centerX, float centerY) {
-        if (needNewStaticLayout || staticLayout == null) {
-            staticLayout = new StaticLayout(message, textPaint, getLayoutWidth(boundsWidth),
-                    Layout.Alignment.ALIGN_NORMAL, 1, 0, false);
-            needNewStaticLayout = false;
-        }
+        StaticLayout staticLayout = textLayoutCache.getStaticLayout(message, textPaint, getLayoutWidth(boundsWidth),
+                Layout.Alignment.ALIGN_NORMAL);
         canvas.save();
         canvas.translate(centerX, centerY - staticLayout.getHeight() / 2);
         staticLayout.draw(canvas);
         canvas.restore();
     }
 
-    public void setAmbientMode(boolean ambientModeOn) {
-        textPaint.setAntiAlias(!ambientModeOn);
+    public void setAmbientMode(boolean ambientModeOn, boolean lowBitAmbient) {
+        textPaint.setAntiAlias(!(ambientModeOn && lowBitAmbient));
     }
 }
@@ -0,0 +1,164 @@
+package com.macoscope.gcbwatchface.drawer;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * Text layouts and measurements shared by drawers, bounded with LRU eviction. Entries are keyed by text, paint
+ * configuration and layout width. Lookups reuse single mutable key, so the cache must be used on one thread.
+ */
+public class TextLayoutCache {
+    private static final int DEFAULT_MAX_SIZE = 32;
+    private static final int KIND_STATIC_LAYOUT = 1;
+    private static final int KIND_TEXT_BOUNDS = 2;
+    private static final int KIND_TEXT_WIDTH = 3;
+    private static final int NO_WIDTH = -1;
+
+    private final LruCache<Key, Object> cache;
+    private final Key lookupKey = new Key();
+
+    public TextLayoutCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public TextLayoutCache(int maxSize) {
+        cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Layout keeps its own copy of the paint, so later changes of given paint don't affect cached layouts.
+     */
+    public StaticLayout getStaticLayout(String text, TextPaint paint, int width, Layout.Alignment alignment) {
+        lookupKey.set(KIND_STATIC_LAYOUT, text, paint, width);
+        StaticLayout staticLayout = (StaticLayout) cache.get(lookupKey);
+        if (staticLayout == null) {
+            staticLayout = new StaticLayout(text, new TextPaint(paint), width, alignment, 1, 0, false);
+            cache.put(lookupKey.copy(), staticLayout);
+        }
+        return staticLayout;
+    }
+
+    /**
+     * Copy bounds of the whole text into given rectangle, see {@link Paint#getTextBounds(String, int, int, Rect)}.
+     */
+    public void getTextBounds(String text, Paint paint, Rect bounds) {
+        lookupKey.set(KIND_TEXT_BOUNDS, text, paint, NO_WIDTH);
+        Rect cachedBounds = (Rect) cache.get(lookupKey);
+        if (cachedBounds == null) {
+            cachedBounds = new Rect();
+            paint.getTextBounds(text, 0, text.length(), cachedBounds);
+            cache.put(lookupKey.copy(), cachedBounds);
+        }
+        bounds.set(cachedBounds);
+    }
+
+    /**
+     * Width of the whole text, see {@link Paint#measureText(String)}. Boxed only when measured, hits don't allocate.
+     */
+    public float measureText(String text, Paint paint) {
+        lookupKey.set(KIND_TEXT_WIDTH, text, paint, NO_WIDTH);
+        Float width = (Float) cache.get(lookupKey);
+        if (width == null) {
+            width = paint.measureText(text);
+            cache.put(lookupKey.copy(), width);
+        }
+        return width;
+    }
+
+    public int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public int getMissCount() {
+        return cache.missCount();
+    }
+
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    @Override
+    public String toString() {
+        return "TextLayoutCache[size=" + cache.size() + ",hits=" + getHitCount() + ",misses=" + getMissCount() + "]";
+    }
+
+    /**
+     * Paint configuration which affects measured or drawn text.
+     */
+    private static class Key {
+        private int kind;
+        private String text;
+        private int width;
+        private float textSize;
+        private float textScaleX;
+        private Typeface typeface;
+        private int flags;
+        private int color;
+        private Paint.Align textAlign;
+
+        void set(int kind, String text, Paint paint, int width) {
+            this.kind = kind;
+            this.text = text;
+            this.width = width;
+            this.textSize = paint.getTextSize();
+            this.textScaleX = paint.getTextScaleX();
+            this.typeface = paint.getTypeface();
+            this.flags = paint.getFlags();
+            this.color = paint.getColor();
+            this.textAlign = paint.getTextAlign();
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.kind = kind;
+            key.text = text;
+            key.width = width;
+            key.textSize = textSize;
+            key.textScaleX = textScaleX;
+            key.typeface = typeface;
+            key.flags = flags;
+            key.color = color;
+            key.textAlign = textAlign;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return kind == that.kind
+                    && width == that.width
+                    && Float.compare(textSize, that.textSize) == 0
+                    && Float.compare(textScaleX, that.textScaleX) == 0
+                    && flags == that.flags
+                    && color == that.color
+                    && textAlign == that.textAlign
+                    && (typeface == null ? that.typeface == null : typeface.equals(that.typeface))
+                    && (text == null ? that.text == null : text.equals(that.text));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = kind;
+            result = 31 * result + (text != null ? text.hashCode() : 0);
+            result = 31 * result + width;
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + flags;
+            result = 31 * result + color;
+            result = 31 * result + (textAlign != null ? textAlign.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -4,21 +4,25 @@ import android.content.res.Resources;
 
 import com.macoscope.gcbmodel.Event;
 import com.macoscope.gcbwatchface.R;
+import com.macoscope.gcbwatchface.util.WallClock;
 
-import java.util.Calendar;
-import java.util.GregorianCalendar;
-import java.util.TimeZone;
+import java.util.Locale;
 
 public class EventFormatter {
-    private Calendar calendar;
+    /**
+     * Handheld sends events starting within the next hour, so minutes to event above it are formatted without cache.
+     */
+    private static final int MAX_CACHED_MINUTES = 60;
+    private WallClock wallClock;
     private Event event;
+    /**
+     * Minutes to event strings indexed by minutes count, index 0 is "less than minute" label.
+     */
+    private final String[] minutesStrings = new String[MAX_CACHED_MINUTES + 1];
+    private Locale minutesStringsLocale;
 
-    public EventFormatter() {
-        this.calendar = new GregorianCalendar();
-    }
-
-    public void setTimeZone(TimeZone timeZone){
-        calendar.setTimeZone(timeZone);
+    public EventFormatter(WallClock wallClock) {
+        this.wallClock = wallClock;
     }
 
     public void setEvent(Event event) {
@@ -33,8 +37,32 @@ public class EventFormatter {
         return event.getCalendarDisplayName();
     }
 
+    public long getEventId() {
+        return event.getId();
+    }
+
+    public long getStartDate() {
+        return event.getStartDate();
+    }
+
+    public long getMinutesToEvent(long datePointTime) {
+        return event.getMinutesToEvent(datePointTime);
+    }
+
     public String getMinutesToEventString(Resources resources, long datePointTime) {
-        long minutes = event.getMinutesToEvent(datePointTime);
+        long minutes = getMinutesToEvent(datePointTime);
+        if (minutes > MAX_CACHED_MINUTES) {
+            return formatMinutes(resources, minutes);
+        }
+        int index = (int) Math.max(0, minutes);
+        clearCacheIfLocaleChanged(resources);
+        if (minutesStrings[index] == null) {
+            minutesStrings[index] = formatMinutes(resources, minutes);
+        }
+        return minutesStrings[index];
+    }
+
+    private String formatMinutes(Resources resources, long minutes) {
         if (minutes > 0) {
             return resources.getQuantityString(R.plurals.minutes, (int) minutes, minutes);
         } else {
@@ -42,9 +70,26 @@ public class EventFormatter {
         }
     }
 
+    /**
+     * Configuration gets new locale instance when locale changes, so reference comparison is enough and doesn't
+     * allocate.
+     */
+    private void clearCacheIfLocaleChanged(Resources resources) {
+        Locale locale = resources.getConfiguration().locale;
+        if (locale != minutesStringsLocale) {
+            minutesStringsLocale = locale;
+            clearMinutesCache();
+        }
+    }
+
+    private void clearMinutesCache() {
+        for (int i = 0; i < minutesStrings.length; i++) {
+            minutesStrings[i] = null;
+        }
+    }
+
     public int getHourMinutes() {
-        calendar.setTimeInMillis(event.getStartDate());
-        return calendar.get(Calendar.MINUTE);
+        return wallClock.getMinute(event.getStartDate());
     }
 
     public boolean hasEvent() {
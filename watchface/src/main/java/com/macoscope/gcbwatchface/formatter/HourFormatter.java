@@ -1,35 +1,18 @@
 package com.macoscope.gcbwatchface.formatter;
 
-import java.util.Calendar;
-import java.util.GregorianCalendar;
-import java.util.TimeZone;
-
 public class HourFormatter {
-    private Calendar hourCalendar;
+    public static final int HOURS_PER_DAY = 24;
+    private static final int HALF_HOUR_MINUTES = 30;
 
-    public HourFormatter(){
-        hourCalendar = new GregorianCalendar();
+    private HourFormatter() {
     }
+
     /**
-     * Format calendar hour to String. If time is half past function return hour with +1h offset
-     * @param calendar with set time
-     * @return  given calendar's hour when minutes < 30, otherwise following hour
-     *          for 00:30 function return "1"
-     *          for 12:16 function return "12"
+     * Hour to display with +1h offset if time is half past, for 00:30 returns 1 and for 12:16 returns 12.
+     * @param hourOfDay 0-23
+     * @return hour of day when minutes < 30, otherwise following hour of day
      */
-    public String getHourToDisplay(Calendar calendar) {
-        hourCalendar.setTimeInMillis(calendar.getTimeInMillis());
-        int hour = hourCalendar.get(Calendar.HOUR_OF_DAY);
-        int minutes = hourCalendar.get(Calendar.MINUTE);
-        if (minutes >= 30) {
-            hourCalendar.add(Calendar.HOUR_OF_DAY, 1);
-            hour = hourCalendar.get(Calendar.HOUR_OF_DAY);
-        }
-        return String.format("%d", hour);
+    public static int getHourToDisplay(int hourOfDay, int minutes) {
+        return minutes >= HALF_HOUR_MINUTES ? (hourOfDay + 1) % HOURS_PER_DAY : hourOfDay;
     }
-
-    public void setTimeZone(TimeZone timeZone){
-        hourCalendar.setTimeZone(timeZone);
-    }
-
 }
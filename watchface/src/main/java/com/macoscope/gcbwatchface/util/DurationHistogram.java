@@ -0,0 +1,65 @@
+package com.macoscope.gcbwatchface.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram of durations with fixed power of two buckets, recording doesn't allocate. Bucket i counts durations
+ * shorter than 2^i microseconds, the last bucket counts everything longer.
+ */
+public class DurationHistogram {
+    static final int BUCKETS_COUNT = 20;
+
+    private final long[] counts = new long[BUCKETS_COUNT];
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long durationNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+        int bucket = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        counts[Math.min(bucket, BUCKETS_COUNT - 1)]++;
+        totalCount++;
+        totalNanos += durationNanos;
+        maxNanos = Math.max(maxNanos, durationNanos);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getAverageMicros() {
+        return totalCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / totalCount);
+    }
+
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos);
+    }
+
+    /**
+     * @param percentile 0-100
+     * @return upper bound of the bucket containing given percentile, in microseconds
+     */
+    public long getPercentileMicros(int percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = (totalCount * percentile + 99) / 100;
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKETS_COUNT - 1; bucket++) {
+            count += counts[bucket];
+            if (count >= threshold) {
+                return 1L << bucket;
+            }
+        }
+        return getMaxMicros();
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+            counts[bucket] = 0;
+        }
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.macoscope.gcbwatchface.util;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local time fields computed with integer arithmetic instead of {@link java.util.Calendar}. Zone offset is cached
+ * together with the moment of the next offset change (DST transition), so time zone is consulted only when the
+ * cached offset expires. Not thread safe.
+ */
+public class WallClock {
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    /**
+     * Offset changes are searched for one day ahead. Zones don't change offset twice a day, so the same offset at
+     * both ends of this window means there is no change in between.
+     */
+    private static final long TRANSITION_LOOKAHEAD_MS = DAY_MS;
+
+    private TimeZone timeZone;
+    private int offset;
+    private long offsetValidFrom;
+    private long offsetValidUntil;
+    private long timeInMillis;
+    private long localMillis;
+
+    public WallClock(TimeZone timeZone) {
+        setTimeZone(timeZone);
+    }
+
+    public void setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        updateOffset(timeInMillis);
+        localMillis = timeInMillis + offset;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeInMillis(long timeInMillis) {
+        this.timeInMillis = timeInMillis;
+        localMillis = timeInMillis + getOffset(timeInMillis);
+    }
+
+    public long getTimeInMillis() {
+        return timeInMillis;
+    }
+
+    public int getHourOfDay() {
+        return (int) (getMillisOfDay(localMillis) / HOUR_MS);
+    }
+
+    public int getMinute() {
+        return (int) (getMillisOfDay(localMillis) % HOUR_MS / MINUTE_MS);
+    }
+
+    /**
+     * @return milliseconds since local midnight
+     */
+    public long getMillisOfDay() {
+        return getMillisOfDay(localMillis);
+    }
+
+    /**
+     * Minute of given time, e.g. of event start date. Doesn't change current time.
+     */
+    public int getMinute(long timeInMillis) {
+        long millisOfDay = getMillisOfDay(timeInMillis + getOffsetWithoutCaching(timeInMillis));
+        return (int) (millisOfDay % HOUR_MS / MINUTE_MS);
+    }
+
+    /**
+     * @return moment at which cached zone offset stops being valid, wall time jumps then
+     */
+    public long getNextOffsetChange() {
+        return offsetValidUntil;
+    }
+
+    private int getOffset(long timeInMillis) {
+        if (!isOffsetValid(timeInMillis)) {
+            updateOffset(timeInMillis);
+        }
+        return offset;
+    }
+
+    /**
+     * Offset for any other time than current one, cached offset is kept for current time.
+     */
+    private int getOffsetWithoutCaching(long timeInMillis) {
+        return isOffsetValid(timeInMillis) ? offset : timeZone.getOffset(timeInMillis);
+    }
+
+    private boolean isOffsetValid(long timeInMillis) {
+        return timeInMillis >= offsetValidFrom && timeInMillis < offsetValidUntil;
+    }
+
+    private void updateOffset(long timeInMillis) {
+        offset = timeZone.getOffset(timeInMillis);
+        offsetValidFrom = timeInMillis;
+        long lookaheadEnd = timeInMillis + TRANSITION_LOOKAHEAD_MS;
+        if (timeZone.getOffset(lookaheadEnd) == offset) {
+            offsetValidUntil = lookaheadEnd;
+        } else {
+            offsetValidUntil = findOffsetChange(timeInMillis, lookaheadEnd);
+        }
+    }
+
+    /**
+     * Binary search for the first millisecond with offset different than the offset at given start.
+     */
+    private long findOffsetChange(long start, long end) {
+        long low = start;
+        long high = end;
+        while (high - low > 1) {
+            long middle = low + (high - low) / 2;
+            if (timeZone.getOffset(middle) == offset) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    private static long getMillisOfDay(long localMillis) {
+        long millisOfDay = localMillis % DAY_MS;
+        return millisOfDay < 0 ? millisOfDay + DAY_MS : millisOfDay;
+    }
+}
@@ -31,4 +31,9 @@ class ColorPaletteSpec extends Specification {
             objectUnderTest.getHourColor(59) == 0xe3325c
     }
 
+    def "should return grey of the same luminance in ambient mode"() {
+        expect:
+            objectUnderTest.getAmbientColor(0xffe3325c as int) == 0xff6b6b6b as int
+            objectUnderTest.getAmbientColor(0xffffff) == 0xffffff
+    }
 }
@@ -0,0 +1,74 @@
+package com.macoscope.gcbwatchface
+
+import com.google.android.gms.wearable.DataMap
+import com.macoscope.gcbmodel.CommunicationConfig
+import com.macoscope.gcbmodel.EventTimeline
+import com.macoscope.gcbmodel.EventsPayloadWriter
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robospock.RoboSpecification
+import rx.Observable
+
+@Config(constants = BuildConfig, sdk = 21)
+class EventsManagerMessagesSpec extends RoboSpecification {
+    static final long START_TIME = System.currentTimeMillis() + 60000L
+    static final byte[] TRUNCATED_PAYLOAD = [2, 0, 0] as byte[]
+
+    SnapshotRequester snapshotRequester = Mock()
+    EventsManager objectUnderTest = new EventsManager()
+
+    def setup() {
+        objectUnderTest.eventsCache = new EventsCache(RuntimeEnvironment.application)
+        objectUnderTest.snapshotRequester = snapshotRequester
+    }
+
+    def "should apply message received after one which can't be decoded"() {
+        given:
+            Observable<List<DataMap>> messages = Observable.just([snapshot(1, TRUNCATED_PAYLOAD)],
+                    [snapshot(2, payload(10L, 11L))])
+        when:
+            List<EventTimeline> timelines = messages.map(objectUnderTest.dataMapsToTimelineFunction)
+                    .filter(objectUnderTest.isChangedFunction)
+                    .toList()
+                    .toBlocking()
+                    .single()
+        then:
+            1 * snapshotRequester.request(_)
+            timelines.size() == 1
+            timelines[0].toEvents()*.id == [10L, 11L]
+    }
+
+    def "should keep events and request snapshot when delta can't be decoded"() {
+        given:
+            objectUnderTest.applyDataMaps([snapshot(1, payload(10L))])
+        when:
+            EventTimeline timeline = objectUnderTest.applyDataMaps([delta(1, 2, TRUNCATED_PAYLOAD)])
+        then:
+            1 * snapshotRequester.request(1)
+            timeline == null
+            objectUnderTest.syncedTimeline.toEvents()*.id == [10L]
+    }
+
+    static byte[] payload(long... ids) {
+        EventsPayloadWriter writer = new EventsPayloadWriter()
+        for (int i = 0; i < ids.length; i++) {
+            writer.writeEvent(ids[i], START_TIME + i, "Event " + ids[i], 1, "Work")
+        }
+        return writer.toByteArray()
+    }
+
+    static DataMap snapshot(long sequence, byte[] payload) {
+        DataMap dataMap = new DataMap()
+        dataMap.putLong(CommunicationConfig.EVENTS_SEQUENCE_KEY, sequence)
+        dataMap.putByteArray(CommunicationConfig.EVENTS_PAYLOAD_DATA_KEY, payload)
+        return dataMap
+    }
+
+    static DataMap delta(long baseSequence, long sequence, byte[] payload) {
+        DataMap dataMap = new DataMap()
+        dataMap.putLong(CommunicationConfig.EVENTS_SEQUENCE_KEY, sequence)
+        dataMap.putLong(CommunicationConfig.EVENTS_BASE_SEQUENCE_KEY, baseSequence)
+        dataMap.putByteArray(CommunicationConfig.EVENTS_DELTA_DATA_KEY, payload)
+        return dataMap
+    }
+}
@@ -65,31 +65,4 @@ class EventsManagerSpec extends Specification {
         then:
         !event.isPresent()
     }
-
-    def "should return -1 comparing event from past with event from future"() {
-        given:
-        long now = System.currentTimeMillis()
-        Event past = new Event(0, now - 1, "", "")
-        Event future = new Event(1, now + 1, "", "")
-        expect:
-        EventsManager.eventComparator.compare(past, future) == -1
-    }
-
-    def "should return 1 comparing event from future with event from past"() {
-        given:
-        long now = System.currentTimeMillis()
-        Event past = new Event(0, now - 1, "", "")
-        Event future = new Event(1, now + 1, "", "")
-        expect:
-        EventsManager.eventComparator.compare(future, past) == 1
-    }
-
-    def "should return 0 comparing events with the same start date"() {
-        given:
-        long now = System.currentTimeMillis()
-        Event eventOne = new Event(0, now, "", "")
-        Event eventTwo = new Event(1, now, "", "")
-        expect:
-        EventsManager.eventComparator.compare(eventOne, eventTwo) == 0
-    }
 }
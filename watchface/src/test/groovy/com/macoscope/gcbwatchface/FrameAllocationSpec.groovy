@@ -0,0 +1,157 @@
+package com.macoscope.gcbwatchface
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Rect
+import com.google.monitoring.runtime.instrumentation.AllocationRecorder
+import com.google.monitoring.runtime.instrumentation.Sampler
+import com.macoscope.gcbmodel.Event
+import com.macoscope.gcbwatchface.formatter.EventFormatter
+import com.macoscope.gcbwatchface.util.WallClock
+import groovy.transform.CompileStatic
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robospock.RoboSpecification
+import spock.lang.Requires
+import spock.lang.Unroll
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.TimeUnit
+
+/**
+ * Fails when steady state frames allocate. Frames of one ring state are rendered once to warm up caches and then
+ * rendered again while allocations are recorded by java-allocation-instrumenter agent, which the build attaches to
+ * frameAllocationTest task only. Allocations made on behalf of Robolectric shadows are skipped, they allocate on their
+ * own when recording canvas calls.
+ */
+@Config(constants = BuildConfig, sdk = 21)
+@Requires({ FrameAllocationSpec.isAgentAttached() })
+class FrameAllocationSpec extends RoboSpecification {
+    static final int FACE_SIZE = 320
+    static final int MEASURED_PASSES = 5
+    static final long START_TIME = 1464775200000L
+    static final long FRAME_INTERVAL_MS = TimeUnit.SECONDS.toMillis(5)
+    static final long STEADY_STATE_MS = TimeUnit.MINUTES.toMillis(5)
+    static final long EVENT_OFFSET_MS = TimeUnit.MINUTES.toMillis(30)
+
+    @Unroll
+    def "steady state frames in #mode mode should not allocate"() {
+        given:
+            WallClock wallClock = new WallClock(TimeZone.getTimeZone("UTC"))
+            EventFormatter eventFormatter = new EventFormatter(wallClock)
+            if (withEvent) {
+                eventFormatter.setEvent(new Event(1, START_TIME + EVENT_OFFSET_MS, "Steady state event title", "Work"))
+            }
+            WatchFaceRenderer renderer = new WatchFaceRenderer(RuntimeEnvironment.application, wallClock,
+                    eventFormatter, new FrameStats())
+            renderer.measure(FACE_SIZE, FACE_SIZE)
+            renderer.setAmbientMode(ambientMode, false)
+            Canvas canvas = new Canvas(Bitmap.createBitmap(FACE_SIZE, FACE_SIZE, Bitmap.Config.ARGB_8888))
+            Rect bounds = new Rect(0, 0, FACE_SIZE, FACE_SIZE)
+            renderFrames(renderer, canvas, bounds, eventMode)
+            SiteRecorder recorder = new SiteRecorder(Thread.currentThread())
+            AllocationRecorder.addSampler(recorder)
+        when:
+            recorder.recording = true
+            for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+                renderFrames(renderer, canvas, bounds, eventMode)
+            }
+            recorder.recording = false
+        then:
+            recorder.sites == [:]
+        cleanup:
+            AllocationRecorder.removeSampler(recorder)
+        where:
+            mode          | eventMode | ambientMode | withEvent
+            "interactive" | false     | false       | true
+            "event"       | true      | false       | true
+            "placeholder" | true      | false       | false
+            "ambient"     | false     | true        | true
+    }
+
+    def "should record allocation of text formatted in draw path"() {
+        given:
+            Canvas canvas = new Canvas(Bitmap.createBitmap(FACE_SIZE, FACE_SIZE, Bitmap.Config.ARGB_8888))
+            Paint paint = new Paint()
+            drawMinutesFormattedPerFrame(canvas, paint)
+            SiteRecorder recorder = new SiteRecorder(Thread.currentThread())
+            AllocationRecorder.addSampler(recorder)
+        when:
+            recorder.recording = true
+            drawMinutesFormattedPerFrame(canvas, paint)
+            recorder.recording = false
+        then:
+            recorder.sites.keySet().any { it.contains("drawMinutesFormattedPerFrame") }
+        cleanup:
+            AllocationRecorder.removeSampler(recorder)
+    }
+
+    /**
+     * Formats minutes with String.valueOf on every frame, which is what steady state frames must not do.
+     */
+    @CompileStatic
+    static void drawMinutesFormattedPerFrame(Canvas canvas, Paint paint) {
+        for (int minute = 0; minute < 60; minute++) {
+            canvas.drawText(String.valueOf(minute), 0, 0, paint)
+        }
+    }
+
+    @CompileStatic
+    static void renderFrames(WatchFaceRenderer renderer, Canvas canvas, Rect bounds, boolean eventMode) {
+        for (long time = START_TIME; time < START_TIME + STEADY_STATE_MS; time += FRAME_INTERVAL_MS) {
+            renderer.draw(canvas, bounds, time, eventMode)
+        }
+    }
+
+    static boolean isAgentAttached() {
+        return ManagementFactory.runtimeMXBean.inputArguments.any { it.contains("java-allocation-instrumenter") }
+    }
+
+    /**
+     * Counts allocations on rendering thread by allocation site, i.e. the first stack frame outside of the agent, JDK
+     * and Android classes. Sites in Robolectric are skipped, any other site is counted.
+     */
+    @CompileStatic
+    static class SiteRecorder implements Sampler {
+        static final String[] PLATFORM_PACKAGES = ["com.google.monitoring.", "java.", "javax.", "sun.", "com.sun.",
+                                                   "libcore.", "dalvik.", "android."]
+        static final String ROBOLECTRIC_PACKAGE = "org.robolectric."
+
+        final Thread renderThread
+        final Map<String, Integer> sites = new TreeMap<>()
+        volatile boolean recording
+
+        SiteRecorder(Thread renderThread) {
+            this.renderThread = renderThread
+        }
+
+        @Override
+        void sampleAllocation(int count, String description, Object newObject, long size) {
+            if (!recording || Thread.currentThread() != renderThread) {
+                return
+            }
+            for (StackTraceElement element : new Throwable().stackTrace) {
+                String className = element.className
+                if (className.startsWith(SiteRecorder.name) || isPlatformClass(className)) {
+                    continue
+                }
+                if (!className.startsWith(ROBOLECTRIC_PACKAGE)) {
+                    String site = description + " at " + element
+                    Integer allocations = sites.get(site)
+                    sites.put(site, allocations == null ? 1 : allocations + 1)
+                }
+                return
+            }
+        }
+
+        static boolean isPlatformClass(String className) {
+            for (String platformPackage : PLATFORM_PACKAGES) {
+                if (className.startsWith(platformPackage)) {
+                    return true
+                }
+            }
+            return false
+        }
+    }
+}
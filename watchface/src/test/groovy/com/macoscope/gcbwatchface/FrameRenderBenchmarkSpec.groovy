@@ -0,0 +1,172 @@
+package com.macoscope.gcbwatchface
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Rect
+import com.google.monitoring.runtime.instrumentation.AllocationRecorder
+import com.macoscope.gcbmodel.Event
+import com.macoscope.gcbwatchface.formatter.EventFormatter
+import com.macoscope.gcbwatchface.util.WallClock
+import groovy.json.JsonOutput
+import groovy.transform.CompileStatic
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robospock.RoboSpecification
+import spock.lang.Shared
+import spock.lang.Unroll
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.TimeUnit
+
+/**
+ * Renders frames headless with a fake clock and synthetic events, and writes time and allocations per frame for
+ * each mode to a JSON file (benchmark.output system property), so render changes can be compared before and after.
+ * Robolectric canvas doesn't rasterize, so timings cover the Java side of drawing only. When allocation instrumenter
+ * agent is attached (frameAllocationTest task), measured frames are rendered once more to count allocated objects
+ * per frame the same way as {@link FrameAllocationSpec}, timings of such run are skewed by the agent.
+ */
+@Config(constants = BuildConfig, sdk = 21)
+class FrameRenderBenchmarkSpec extends RoboSpecification {
+    static final String DEFAULT_OUTPUT = "build/benchmarks/frame-render.json"
+    static final int WARM_UP_FRAMES = 200
+    static final int MEASURED_FRAMES = 1000
+    static final int FACE_SIZE = 320
+    static final long START_TIME = 1464775200000L
+    static final long FRAME_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1)
+    static final long EVENTS_INTERVAL_MS = TimeUnit.MINUTES.toMillis(7)
+    static final int EVENTS_COUNT = 10
+
+    @Shared
+    Map<String, Map<String, Object>> results = new LinkedHashMap<>()
+
+    @Unroll
+    def "should measure frames in #mode mode"() {
+        given:
+            WallClock wallClock = new WallClock(TimeZone.getTimeZone("UTC"))
+            EventFormatter eventFormatter = new EventFormatter(wallClock)
+            WatchFaceRenderer renderer = new WatchFaceRenderer(RuntimeEnvironment.application, wallClock,
+                    eventFormatter, new FrameStats())
+            renderer.measure(FACE_SIZE, FACE_SIZE)
+            renderer.setAmbientMode(ambientMode, false)
+        when:
+            Map<String, Object> result = benchmark(renderer, eventFormatter, createEvents(), eventMode)
+            results.put(mode, result)
+        then:
+            result.frames == MEASURED_FRAMES
+            result.meanMicros >= 0
+            result.p99Micros >= result.minMicros
+        where:
+            mode          | eventMode | ambientMode
+            "interactive" | false     | false
+            "event"       | true      | false
+            "ambient"     | false     | true
+    }
+
+    def cleanupSpec() {
+        File output = new File(System.getProperty("benchmark.output", DEFAULT_OUTPUT))
+        output.parentFile.mkdirs()
+        Map<String, Object> report = [
+                "javaVersion"    : System.getProperty("java.version"),
+                "warmUpFrames"   : WARM_UP_FRAMES,
+                "measuredFrames" : MEASURED_FRAMES,
+                "frameIntervalMs": FRAME_INTERVAL_MS,
+                "allocationAgent": FrameAllocationSpec.isAgentAttached(),
+                "modes"          : results
+        ]
+        output.text = JsonOutput.prettyPrint(JsonOutput.toJson(report))
+    }
+
+    static List<Event> createEvents() {
+        List<Event> events = new ArrayList<>()
+        for (int i = 0; i < EVENTS_COUNT; i++) {
+            events.add(new Event(i, START_TIME + (i + 1) * EVENTS_INTERVAL_MS, "Synthetic event number " + i
+                    + " with a title long enough to wrap", "Calendar " + i % 3))
+        }
+        return events
+    }
+
+    /**
+     * Measured loop is statically compiled, so dynamic dispatch doesn't add time or allocations to frames.
+     */
+    @CompileStatic
+    static Map<String, Object> benchmark(WatchFaceRenderer renderer, EventFormatter eventFormatter,
+                                         List<Event> events, boolean eventMode) {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(FACE_SIZE, FACE_SIZE, Bitmap.Config.ARGB_8888))
+        Rect bounds = new Rect(0, 0, FACE_SIZE, FACE_SIZE)
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean()
+        long threadId = Thread.currentThread().getId()
+        long[] durations = new long[MEASURED_FRAMES]
+        long currentTime = START_TIME
+        long allocatedBytes = 0
+        for (int frame = 0; frame < WARM_UP_FRAMES + MEASURED_FRAMES; frame++) {
+            setUpcomingEvent(eventFormatter, events, currentTime)
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId)
+            long frameStart = System.nanoTime()
+            renderer.draw(canvas, bounds, currentTime, eventMode)
+            long duration = System.nanoTime() - frameStart
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+            if (frame >= WARM_UP_FRAMES) {
+                durations[frame - WARM_UP_FRAMES] = duration
+                allocatedBytes += allocated
+            }
+            currentTime += FRAME_INTERVAL_MS
+        }
+        long totalNanos = 0
+        for (long duration : durations) {
+            totalNanos += duration
+        }
+        Arrays.sort(durations)
+        Map<String, Object> result = new LinkedHashMap<>()
+        result.put("frames", MEASURED_FRAMES)
+        result.put("meanMicros", TimeUnit.NANOSECONDS.toMicros(totalNanos.intdiv(MEASURED_FRAMES) as long))
+        result.put("p99Micros", TimeUnit.NANOSECONDS.toMicros(durations[(int) Math.ceil(MEASURED_FRAMES * 0.99) - 1]))
+        result.put("minMicros", TimeUnit.NANOSECONDS.toMicros(durations[0]))
+        result.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(durations[MEASURED_FRAMES - 1]))
+        result.put("allocatedBytesPerFrame", allocatedBytes.intdiv(MEASURED_FRAMES))
+        if (FrameAllocationSpec.isAgentAttached()) {
+            result.put("allocatedObjectsPerFrame", countObjectsPerFrame(renderer, eventFormatter, events, eventMode,
+                    canvas, bounds))
+        }
+        return result
+    }
+
+    /**
+     * Renders measured frames again with allocation sites recorded, so stack walks of the recorder don't add to
+     * measured durations.
+     */
+    @CompileStatic
+    static double countObjectsPerFrame(WatchFaceRenderer renderer, EventFormatter eventFormatter, List<Event> events,
+                                       boolean eventMode, Canvas canvas, Rect bounds) {
+        FrameAllocationSpec.SiteRecorder recorder = new FrameAllocationSpec.SiteRecorder(Thread.currentThread())
+        AllocationRecorder.addSampler(recorder)
+        try {
+            long currentTime = START_TIME + WARM_UP_FRAMES * FRAME_INTERVAL_MS
+            for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+                setUpcomingEvent(eventFormatter, events, currentTime)
+                recorder.recording = true
+                renderer.draw(canvas, bounds, currentTime, eventMode)
+                recorder.recording = false
+                currentTime += FRAME_INTERVAL_MS
+            }
+        } finally {
+            AllocationRecorder.removeSampler(recorder)
+        }
+        long objects = 0
+        for (Integer siteObjects : recorder.sites.values()) {
+            objects += siteObjects
+        }
+        return objects / (double) MEASURED_FRAMES
+    }
+
+    @CompileStatic
+    static void setUpcomingEvent(EventFormatter eventFormatter, List<Event> events, long currentTime) {
+        for (Event event : events) {
+            if (event.isValidRelativeTo(currentTime)) {
+                eventFormatter.setEvent(event)
+                return
+            }
+        }
+        eventFormatter.clearEvent()
+    }
+}
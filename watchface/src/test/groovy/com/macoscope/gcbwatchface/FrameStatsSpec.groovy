@@ -0,0 +1,47 @@
+package com.macoscope.gcbwatchface
+
+import spock.lang.Specification
+
+class FrameStatsSpec extends Specification {
+
+    def "should count frames drawn in the same minute"() {
+        given:
+            FrameStats objectUnderTest = new FrameStats()
+        when:
+            3.times { objectUnderTest.countFrame(100) }
+        then:
+            objectUnderTest.framesInLastHour == 3
+    }
+
+    def "should drop frames drawn more than an hour ago"() {
+        given:
+            FrameStats objectUnderTest = new FrameStats()
+            2.times { objectUnderTest.countFrame(100) }
+            objectUnderTest.countFrame(130)
+        when:
+            objectUnderTest.countFrame(160)
+        then:
+            objectUnderTest.framesInLastHour == 2
+    }
+
+    def "should keep frames of minutes skipped within an hour"() {
+        given:
+            FrameStats objectUnderTest = new FrameStats()
+            objectUnderTest.countFrame(100)
+        when:
+            objectUnderTest.countFrame(159)
+        then:
+            objectUnderTest.framesInLastHour == 2
+    }
+
+    def "should drop all frames after more than an hour without frames"() {
+        given:
+            FrameStats objectUnderTest = new FrameStats()
+            objectUnderTest.countFrame(100)
+            objectUnderTest.countFrame(101)
+        when:
+            objectUnderTest.countFrame(500)
+        then:
+            objectUnderTest.framesInLastHour == 1
+    }
+}
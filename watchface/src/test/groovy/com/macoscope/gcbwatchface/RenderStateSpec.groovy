@@ -0,0 +1,41 @@
+package com.macoscope.gcbwatchface
+
+import spock.lang.Specification
+
+class RenderStateSpec extends Specification {
+    def "should be equal for the same visible state"() {
+        expect:
+            new RenderState(false, true, 10, 3, 7L, 1000L, 12L) == new RenderState(false, true, 10, 3, 7L, 1000L, 12L)
+            new RenderState(false, true, 10, 3, 7L, 1000L, 12L).hashCode() ==
+                    new RenderState(false, true, 10, 3, 7L, 1000L, 12L).hashCode()
+    }
+
+    def "should differ when any visible part changes"() {
+        given:
+            RenderState state = new RenderState(false, true, 10, 3, 7L, 1000L, 12L)
+        expect:
+            state != new RenderState(true, true, 10, 3, 7L, 1000L, 12L)
+            state != new RenderState(false, false, 10, 3, 7L, 1000L, 12L)
+            state != new RenderState(false, true, 11, 3, 7L, 1000L, 12L)
+            state != new RenderState(false, true, 10, 4, 7L, 1000L, 12L)
+            state != new RenderState(false, true, 10, 3, 8L, 1000L, 12L)
+            state != new RenderState(false, true, 10, 3, 7L, 2000L, 12L)
+            state != new RenderState(false, true, 10, 3, 7L, 1000L, 11L)
+            state != null
+    }
+
+    def "should be equal to state created with the same values after set"() {
+        given:
+            RenderState state = new RenderState(true, false, 1, 2, RenderState.NO_EVENT_ID, 0L, 0L)
+        when:
+            state.set(false, true, 10, 3, 7L, 1000L, 12L)
+        then:
+            state == new RenderState(false, true, 10, 3, 7L, 1000L, 12L)
+    }
+
+    def "should not match any drawn state before first set"() {
+        expect:
+            new RenderState() != new RenderState(false, false, 0, 0, RenderState.NO_EVENT_ID, 0L, 0L)
+            new RenderState() != new RenderState(false, false, 0, 0, 0L, 0L, 0L)
+    }
+}
@@ -0,0 +1,66 @@
+package com.macoscope.gcbwatchface.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.TimeUnit
+
+class DurationHistogramSpec extends Specification {
+
+    @Unroll
+    def "should report #upperBound us as upper bound of #micros us duration"() {
+        given:
+            DurationHistogram objectUnderTest = new DurationHistogram()
+        when:
+            objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(micros))
+        then:
+            objectUnderTest.getPercentileMicros(100) == upperBound
+        where:
+            micros    | upperBound
+            0         | 1
+            1         | 2
+            3         | 4
+            4         | 8
+            1000      | 1024
+            524287    | 524287
+            2_000_000 | 2_000_000
+    }
+
+    def "should report upper bound of bucket which reaches given percentile"() {
+        given:
+            DurationHistogram objectUnderTest = new DurationHistogram()
+        when:
+            95.times { objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(10)) }
+            5.times { objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(5000)) }
+        then:
+            objectUnderTest.getPercentileMicros(50) == 16
+            objectUnderTest.getPercentileMicros(95) == 16
+            objectUnderTest.getPercentileMicros(96) == 8192
+            objectUnderTest.getPercentileMicros(100) == 8192
+    }
+
+    def "should report count, average and max"() {
+        given:
+            DurationHistogram objectUnderTest = new DurationHistogram()
+        when:
+            objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(100))
+            objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(300))
+        then:
+            objectUnderTest.count == 2
+            objectUnderTest.averageMicros == 200
+            objectUnderTest.maxMicros == 300
+    }
+
+    def "should report zeros when empty or reset"() {
+        given:
+            DurationHistogram objectUnderTest = new DurationHistogram()
+            objectUnderTest.record(TimeUnit.MICROSECONDS.toNanos(100))
+        when:
+            objectUnderTest.reset()
+        then:
+            objectUnderTest.count == 0
+            objectUnderTest.averageMicros == 0
+            objectUnderTest.maxMicros == 0
+            objectUnderTest.getPercentileMicros(95) == 0
+    }
+}
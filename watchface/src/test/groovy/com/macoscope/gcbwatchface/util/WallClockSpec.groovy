@@ -0,0 +1,65 @@
+package com.macoscope.gcbwatchface.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class WallClockSpec extends Specification {
+    TimeZone warsaw = TimeZone.getTimeZone("Europe/Warsaw")
+
+    @Unroll
+    def 'should return the same hour and minute as calendar for #dateTime'() {
+        given:
+            Calendar calendar = new GregorianCalendar(warsaw)
+            calendar.set(2016, 2, 27, hourOfDay, minute, 15)
+            WallClock objectUnderTest = new WallClock(warsaw)
+        when:
+            objectUnderTest.setTimeInMillis(calendar.getTimeInMillis())
+        then:
+            objectUnderTest.hourOfDay == calendar.get(Calendar.HOUR_OF_DAY)
+            objectUnderTest.minute == calendar.get(Calendar.MINUTE)
+        where:
+            hourOfDay | minute
+            0         | 0
+            1         | 59
+            3         | 1
+            23        | 30
+            dateTime = "$hourOfDay:$minute"
+    }
+
+    def 'should follow time across DST transition'() {
+        given:
+            Calendar calendar = new GregorianCalendar(warsaw)
+            calendar.set(2016, 2, 26, 12, 0, 0)
+            WallClock objectUnderTest = new WallClock(warsaw)
+        expect:
+            (0..48).every {
+                objectUnderTest.setTimeInMillis(calendar.getTimeInMillis())
+                boolean same = objectUnderTest.hourOfDay == calendar.get(Calendar.HOUR_OF_DAY) &&
+                        objectUnderTest.minute == calendar.get(Calendar.MINUTE)
+                calendar.add(Calendar.MINUTE, 59)
+                same
+            }
+    }
+
+    def 'should find next offset change'() {
+        given:
+            Calendar calendar = new GregorianCalendar(warsaw)
+            calendar.set(2016, 2, 26, 22, 0, 0)
+            calendar.set(Calendar.MILLISECOND, 0)
+            WallClock objectUnderTest = new WallClock(warsaw)
+        when:
+            objectUnderTest.setTimeInMillis(calendar.getTimeInMillis())
+        then:
+            objectUnderTest.nextOffsetChange == calendar.getTimeInMillis() + 4 * 60 * 60 * 1000
+    }
+
+    def 'should return minute of other time without changing current time'() {
+        given:
+            WallClock objectUnderTest = new WallClock(TimeZone.getTimeZone("Asia/Kolkata"))
+            objectUnderTest.setTimeInMillis(0)
+        expect:
+            objectUnderTest.getMinute(60 * 60 * 1000) == 30
+            objectUnderTest.hourOfDay == 5
+            objectUnderTest.minute == 30
+    }
+}